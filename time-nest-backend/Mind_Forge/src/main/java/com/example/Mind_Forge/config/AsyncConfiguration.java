@@ -1,12 +1,16 @@
 package com.example.Mind_Forge.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 @Configuration
 public class AsyncConfiguration {
 
+    private static final int RESERVED_CONNECTIONS = 2;
+
     @Bean
     public ThreadPoolTaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
@@ -17,4 +21,39 @@ public class AsyncConfiguration {
         scheduler.initialize();
         return scheduler;
     }
+
+    // Runs shift monitoring shards in parallel. Each thread holds a connection while it
+    // checks a shift, so the size is capped to leave room in the pool for requests and
+    // the heartbeat flush.
+    @Bean
+    public ThreadPoolTaskExecutor monitoringExecutor(
+            @Value("${monitoring.sweep.parallelism:3}") int parallelism,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
+        int threads = Math.max(1, Math.min(parallelism, maximumPoolSize - RESERVED_CONNECTIONS));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("monitoring-shard-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    // Sends outbox emails, one provider batch per task. Workers only make the provider call -
+    // claiming and settling messages are short statements - so the pool isn't tied to the
+    // connection pool. The queue holds one waiting batch per worker; the dispatcher doesn't
+    // claim more while it is full.
+    @Bean
+    public ThreadPoolTaskExecutor emailExecutor(@Value("${email.outbox.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, workers));
+        executor.setMaxPoolSize(Math.max(1, workers));
+        executor.setQueueCapacity(Math.max(1, workers));
+        executor.setThreadNamePrefix("email-outbox-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
 }
@@ -0,0 +1,39 @@
+package com.example.Mind_Forge.config;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class EmailClientConfiguration {
+
+    // Outbound client for the email provider only. Every phase of a call has a timeout and the
+    // call as a whole is capped, so a hung connection fails the send instead of pinning the
+    // thread. The pool keeps enough idle connections for the outbox workers, so sends reuse
+    // warm TLS connections - and a single multiplexed one when the provider speaks HTTP/2.
+    @Bean
+    public OkHttpClient emailHttpClient(
+            @Value("${email.client.connect-timeout-ms:5000}") long connectTimeoutMillis,
+            @Value("${email.client.read-timeout-ms:10000}") long readTimeoutMillis,
+            @Value("${email.client.write-timeout-ms:10000}") long writeTimeoutMillis,
+            @Value("${email.client.call-timeout-ms:20000}") long callTimeoutMillis,
+            @Value("${email.client.pool.max-idle:4}") int maxIdleConnections,
+            @Value("${email.client.pool.keep-alive-ms:300000}") long keepAliveMillis) {
+        return new OkHttpClient.Builder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .readTimeout(Duration.ofMillis(readTimeoutMillis))
+                .writeTimeout(Duration.ofMillis(writeTimeoutMillis))
+                .callTimeout(Duration.ofMillis(callTimeoutMillis))
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+}
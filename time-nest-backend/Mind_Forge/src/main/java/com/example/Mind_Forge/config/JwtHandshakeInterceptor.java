@@ -0,0 +1,86 @@
+package com.example.Mind_Forge.config;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.example.Mind_Forge.model.User;
+import com.example.Mind_Forge.service.JwtService;
+
+/*
+ * Authenticates a WebSocket handshake once, at connect time.
+ * Browsers can't set headers on a WebSocket upgrade, so the JWT is taken from the
+ * "token" query parameter (or the Authorization header for non-browser clients).
+ */
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+    public static final String USER_ATTRIBUTE = "user";
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+
+    private static final Logger log = LoggerFactory.getLogger(JwtHandshakeInterceptor.class);
+
+    public JwtHandshakeInterceptor(JwtService jwtService, UserDetailsService userDetailsService) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = extractToken(request);
+        if (token == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        try {
+            String userEmail = jwtService.extractUsername(token);
+            UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+
+            if (!jwtService.isTokenValid(token, userDetails) || !(userDetails instanceof User user)) {
+                response.setStatusCode(HttpStatus.UNAUTHORIZED);
+                return false;
+            }
+
+            if (!"employee".equalsIgnoreCase(user.getRole())) {
+                response.setStatusCode(HttpStatus.FORBIDDEN);
+                return false;
+            }
+
+            attributes.put(USER_ATTRIBUTE, user);
+            return true;
+        } catch (Exception e) {
+            log.warn("Rejected WebSocket handshake: {}", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private String extractToken(ServerHttpRequest request) {
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams()
+                .getFirst("token");
+    }
+}
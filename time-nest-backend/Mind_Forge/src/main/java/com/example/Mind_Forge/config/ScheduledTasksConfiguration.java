@@ -1,9 +1,17 @@
 package com.example.Mind_Forge.config;
 
+import com.example.Mind_Forge.service.ActiveShiftRegistry;
+import com.example.Mind_Forge.service.EmailOutboxService;
+import com.example.Mind_Forge.service.LocationTrackService;
+import com.example.Mind_Forge.service.MonitoringLeaseManager;
+import com.example.Mind_Forge.service.NotificationRetentionService;
+import com.example.Mind_Forge.service.NotificationStreamService;
 import com.example.Mind_Forge.service.ShiftMonitoringService;
+import com.example.Mind_Forge.service.UnreadNotificationCounters;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -15,24 +23,49 @@ import java.time.LocalDateTime;
 public class ScheduledTasksConfiguration {
 
     private final ShiftMonitoringService shiftMonitoringService;
+    private final ActiveShiftRegistry activeShiftRegistry;
+    private final LocationTrackService locationTrackService;
+    private final MonitoringLeaseManager monitoringLeaseManager;
+    private final NotificationStreamService notificationStreamService;
+    private final UnreadNotificationCounters unreadNotificationCounters;
+    private final NotificationRetentionService notificationRetentionService;
+    private final EmailOutboxService emailOutboxService;
+    private final long sweepIntervalMillis;
     private static final Logger log = LoggerFactory.getLogger(ScheduledTasksConfiguration.class);
 
-    public ScheduledTasksConfiguration(ShiftMonitoringService shiftMonitoringService) {
+    public ScheduledTasksConfiguration(ShiftMonitoringService shiftMonitoringService,
+            ActiveShiftRegistry activeShiftRegistry,
+            LocationTrackService locationTrackService,
+            MonitoringLeaseManager monitoringLeaseManager,
+            NotificationStreamService notificationStreamService,
+            UnreadNotificationCounters unreadNotificationCounters,
+            NotificationRetentionService notificationRetentionService,
+            EmailOutboxService emailOutboxService,
+            @Value("${monitoring.sweep.interval-ms:900000}") long sweepIntervalMillis) {
         this.shiftMonitoringService = shiftMonitoringService;
+        this.activeShiftRegistry = activeShiftRegistry;
+        this.locationTrackService = locationTrackService;
+        this.monitoringLeaseManager = monitoringLeaseManager;
+        this.notificationStreamService = notificationStreamService;
+        this.unreadNotificationCounters = unreadNotificationCounters;
+        this.notificationRetentionService = notificationRetentionService;
+        this.emailOutboxService = emailOutboxService;
+        this.sweepIntervalMillis = sweepIntervalMillis;
     }
 
     @PostConstruct
     public void init() {
         log.info("========================================");
         log.info("SCHEDULED TASKS CONFIGURATION LOADED");
-        log.info("Shift monitoring will run every 5 minutes");
-        log.info("Initial delay: 60 seconds");
+        log.info("Heartbeat timeouts are detected per shift by ShiftDeadlineScheduler");
+        log.info("Safety-net monitoring sweep every {} seconds", sweepIntervalMillis / 1000);
         log.info("========================================");
     }
 
-    // Run every 5 minutes (300,000 milliseconds)
+    // Safety net behind the deadline scheduler - picks up shifts no instance has a deadline for,
+    // e.g. after the instance that had them died. Only sweeps partitions leased to this instance. Set to 300000 when monitoring.deadlines.enabled=false.
     // Initial delay of 1 minute to allow app to fully start up
-    @Scheduled(fixedRate = 300000, initialDelay = 60000)
+    @Scheduled(fixedRateString = "${monitoring.sweep.interval-ms:900000}", initialDelay = 60000)
     public void monitorActiveShifts() {
         log.info("========================================");
         log.info("SCHEDULED TASK TRIGGERED at {}", LocalDateTime.now());
@@ -54,4 +87,102 @@ public class ScheduledTasksConfiguration {
             log.error("CRITICAL ERROR in scheduled shift monitoring", e);
         }
     }
+
+    // Keep this instance's monitoring partition leases alive and rebalance them between
+    // instances - must run well within monitoring.lease.duration-ms
+    @Scheduled(fixedDelayString = "${monitoring.lease.renew-interval-ms:10000}")
+    public void renewMonitoringLeases() {
+        try {
+            monitoringLeaseManager.renew();
+        } catch (Exception e) {
+            log.error("Error renewing monitoring partition leases", e);
+        }
+    }
+
+    // Keep idle notification streams open through proxies and drop those whose client went away
+    @Scheduled(fixedRateString = "${notifications.stream.keepalive-ms:25000}")
+    public void keepNotificationStreamsAlive() {
+        try {
+            notificationStreamService.sendKeepAlive();
+        } catch (Exception e) {
+            log.error("Error sending notification stream keepalives", e);
+        }
+    }
+
+    // Pick up notifications created on other instances for the streams open on this one
+    @Scheduled(fixedDelayString = "${notifications.stream.poll-ms:5000}", initialDelay = 5000)
+    public void pollNotificationStreams() {
+        try {
+            notificationStreamService.pollForNewNotifications();
+        } catch (Exception e) {
+            log.error("Error polling for notifications to stream", e);
+        }
+    }
+
+    // Write queued unread-count changes to the persisted counters
+    @Scheduled(fixedDelayString = "${notifications.counters.flush-interval-ms:5000}", initialDelay = 5000)
+    public void flushUnreadCounters() {
+        try {
+            unreadNotificationCounters.flush();
+        } catch (Exception e) {
+            log.error("Error flushing unread notification counters", e);
+        }
+    }
+
+    // Recompute unread counters from the notifications table to correct any drift
+    @Scheduled(fixedDelayString = "${notifications.counters.reconcile-interval-ms:300000}", initialDelay = 60000)
+    public void reconcileUnreadCounters() {
+        try {
+            unreadNotificationCounters.reconcile();
+        } catch (Exception e) {
+            log.error("Error reconciling unread notification counters", e);
+        }
+    }
+
+    // Archive (or purge) old read notifications in small batches
+    @Scheduled(fixedDelayString = "${notifications.retention.interval-ms:3600000}", initialDelay = 300000)
+    public void applyNotificationRetention() {
+        try {
+            notificationRetentionService.run();
+        } catch (Exception e) {
+            log.error("Error applying notification retention", e);
+        }
+    }
+
+    // Executive digest mode - one email per company for the auto clock-outs of the last window
+    @Scheduled(fixedDelayString = "${monitoring.executive-alerts.digest.window-ms:900000}",
+            initialDelayString = "${monitoring.executive-alerts.digest.window-ms:900000}")
+    public void sendExecutiveDigests() {
+        try {
+            shiftMonitoringService.sendExecutiveDigests();
+        } catch (Exception e) {
+            log.error("Error sending executive auto clock-out digests", e);
+        }
+    }
+
+    // Hand due outbox emails to the email workers
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:2000}", initialDelay = 10000)
+    public void dispatchOutboxEmails() {
+        try {
+            emailOutboxService.dispatch();
+        } catch (Exception e) {
+            log.error("Error dispatching outbox emails", e);
+        }
+    }
+
+    // Write-behind flush of heartbeat state held in the active shift registry,
+    // plus any sealed location track segments
+    @Scheduled(fixedDelayString = "${heartbeat.write-behind.flush-interval-ms:5000}", initialDelay = 5000)
+    public void flushHeartbeats() {
+        try {
+            activeShiftRegistry.flush();
+        } catch (Exception e) {
+            log.error("Error flushing heartbeat state", e);
+        }
+        try {
+            locationTrackService.flush();
+        } catch (Exception e) {
+            log.error("Error flushing location track segments", e);
+        }
+    }
 }
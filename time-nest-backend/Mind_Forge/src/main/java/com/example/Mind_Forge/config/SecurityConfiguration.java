@@ -2,6 +2,8 @@ package com.example.Mind_Forge.config;
 
 import java.util.List;
 
+import jakarta.servlet.DispatcherType;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -21,6 +23,21 @@ import org.springframework.web.cors.CorsConfigurationSource;
 @EnableMethodSecurity
 public class SecurityConfiguration {
 
+    // Shared with WebSocketConfiguration so the heartbeat socket accepts the same origins
+    public static final List<String> ALLOWED_ORIGINS = List.of(
+            // Production - New subdomain
+            "https://timenest.infinitetechteam.com",
+            "http://timenest.infinitetechteam.com",
+            // Production - Old domain (keeping for backwards compatibility)
+            "https://timenest.tech",
+            "https://www.timenest.tech",
+            "http://timenest.tech",
+            "http://www.timenest.tech",
+            // Development/Testing
+            "http://localhost:5173",  // Vite dev server
+            "http://localhost:4173"   // Vite preview server
+    );
+
     private final AuthenticationProvider authenticationProvider;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -36,8 +53,10 @@ public class SecurityConfiguration {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Streams were authorized when they were opened
                         .requestMatchers("/auth/refresh").authenticated() // Refresh requires valid token
                         .requestMatchers("/auth/**").permitAll() // Other auth endpoints are public
+                        .requestMatchers("/ws/**").permitAll() // WebSocket handshakes authenticate with the token query param
                         .requestMatchers(HttpMethod.POST, "/timelogs").hasRole("EMPLOYEE")
                         .requestMatchers(HttpMethod.PUT, "/timelogs/**").hasRole("EXECUTIVE")
                         .requestMatchers(HttpMethod.DELETE, "/timelogs/**").hasRole("EXECUTIVE")
@@ -64,21 +83,9 @@ public class SecurityConfiguration {
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
-        config.setAllowedOrigins(List.of(
-            // Production - New subdomain
-            "https://timenest.infinitetechteam.com",
-            "http://timenest.infinitetechteam.com",
-            // Production - Old domain (keeping for backwards compatibility)
-            "https://timenest.tech",
-            "https://www.timenest.tech",
-            "http://timenest.tech",
-            "http://www.timenest.tech",
-            // Development/Testing
-            "http://localhost:5173",  // Vite dev server
-            "http://localhost:4173"   // Vite preview server
-        ));
+        config.setAllowedOrigins(ALLOWED_ORIGINS);
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE"));
-        config.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+        config.setAllowedHeaders(List.of("Authorization", "Content-Type", "Last-Event-ID"));
         config.setAllowCredentials(true); // Important for cookies or auth headers
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
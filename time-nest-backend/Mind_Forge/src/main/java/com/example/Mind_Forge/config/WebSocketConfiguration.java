@@ -0,0 +1,29 @@
+package com.example.Mind_Forge.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import com.example.Mind_Forge.controller.HeartbeatWebSocketHandler;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfiguration implements WebSocketConfigurer {
+
+    private final HeartbeatWebSocketHandler heartbeatWebSocketHandler;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    public WebSocketConfiguration(HeartbeatWebSocketHandler heartbeatWebSocketHandler,
+            JwtHandshakeInterceptor jwtHandshakeInterceptor) {
+        this.heartbeatWebSocketHandler = heartbeatWebSocketHandler;
+        this.jwtHandshakeInterceptor = jwtHandshakeInterceptor;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(heartbeatWebSocketHandler, "/ws/heartbeat")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOrigins(SecurityConfiguration.ALLOWED_ORIGINS.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.Mind_Forge.controller;
+
+import com.example.Mind_Forge.config.JwtHandshakeInterceptor;
+import com.example.Mind_Forge.model.User;
+import com.example.Mind_Forge.service.ActiveShiftState;
+import com.example.Mind_Forge.service.HeartbeatOutcome;
+import com.example.Mind_Forge.service.HeartbeatResult;
+import com.example.Mind_Forge.service.ShiftAlertEvent;
+import com.example.Mind_Forge.service.TimeLogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-lived heartbeat channel at /ws/heartbeat.
+ *
+ * The device authenticates once during the handshake and the session is bound to its active
+ * shift. After that each text frame is just "latitude,longitude" - no headers, no token parsing,
+ * no user lookup. Geofence warnings and auto clock-outs are pushed back on the same socket.
+ */
+@Component
+public class HeartbeatWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String SHIFT_ATTRIBUTE = "activeShift";
+    private static final String INTERVAL_ATTRIBUTE = "nextHeartbeatSeconds";
+    private static final String SESSION_ATTRIBUTE = "concurrentSession";
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 64 * 1024;
+
+    private final TimeLogService timeLogService;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, WebSocketSession> sessionsByUserId = new ConcurrentHashMap<>();
+
+    private static final Logger log = LoggerFactory.getLogger(HeartbeatWebSocketHandler.class);
+
+    public HeartbeatWebSocketHandler(TimeLogService timeLogService, ObjectMapper objectMapper) {
+        this.timeLogService = timeLogService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession rawSession) throws Exception {
+        // Alerts can be pushed from other threads, so serialize sends
+        WebSocketSession session = new ConcurrentWebSocketSessionDecorator(
+                rawSession, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT_BYTES);
+        // The decorator shares the raw session's attributes - later frames arrive on the raw session
+        session.getAttributes().put(SESSION_ATTRIBUTE, session);
+        User user = (User) session.getAttributes().get(JwtHandshakeInterceptor.USER_ATTRIBUTE);
+
+        ActiveShiftState shift = timeLogService.findActiveShift(user.getId());
+        if (shift == null) {
+            send(session, Map.of("type", "ERROR", "error", "No active shift found"));
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+
+        session.getAttributes().put(SHIFT_ATTRIBUTE, shift);
+        WebSocketSession previous = sessionsByUserId.put(user.getId(), session);
+        if (previous != null && previous.isOpen()) {
+            previous.close(CloseStatus.NORMAL.withReason("Replaced by a newer connection"));
+        }
+
+        send(session, Map.of("type", "BOUND", "timeLogId", shift.getTimeLogId()));
+        log.info("Heartbeat socket opened for user {} (shift {})", user.getEmail(), shift.getTimeLogId());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession rawSession, TextMessage message) throws Exception {
+        User user = (User) rawSession.getAttributes().get(JwtHandshakeInterceptor.USER_ATTRIBUTE);
+        ActiveShiftState shift = (ActiveShiftState) rawSession.getAttributes().get(SHIFT_ATTRIBUTE);
+        // This connection's own decorator - the user's registered session may be a newer one
+        WebSocketSession session = (WebSocketSession) rawSession.getAttributes()
+                .getOrDefault(SESSION_ATTRIBUTE, rawSession);
+
+        // Shift was ended or replaced since the socket was bound
+        if (shift == null || timeLogService.findActiveShift(user.getId()) != shift) {
+            send(session, Map.of("type", "ERROR", "error", "No active shift found"));
+            session.close(CloseStatus.NORMAL);
+            return;
+        }
+
+        double[] position = parseFrame(message.getPayload());
+        if (position == null) {
+            send(session, Map.of("type", "ERROR", "error", "Expected frame \"latitude,longitude\""));
+            return;
+        }
+
+        HeartbeatResult result = timeLogService.recordHeartbeat(shift, position[0], position[1]);
+        if (result.outcome() == HeartbeatOutcome.AUTO_CLOCKED_OUT) {
+            // The AUTO_CLOCKOUT alert has already been pushed by onShiftAlert
+            session.close(CloseStatus.NORMAL.withReason("Shift ended"));
+            return;
+        }
+
+        // Frames aren't acknowledged - only tell the device when its recommended interval changes
+        Object previousInterval = rawSession.getAttributes().put(INTERVAL_ATTRIBUTE, result.nextHeartbeatSeconds());
+        if (!Integer.valueOf(result.nextHeartbeatSeconds()).equals(previousInterval)) {
+            send(session, Map.of("type", "INTERVAL", "nextHeartbeatSeconds", result.nextHeartbeatSeconds()));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        User user = (User) session.getAttributes().get(JwtHandshakeInterceptor.USER_ATTRIBUTE);
+        if (user != null) {
+            sessionsByUserId.computeIfPresent(user.getId(),
+                    (id, current) -> current.getId().equals(session.getId()) ? null : current);
+        }
+    }
+
+    // fallbackExecution: real-time alerts are published outside any transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShiftAlert(ShiftAlertEvent event) {
+        WebSocketSession session = sessionsByUserId.get(event.userId());
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", event.type());
+        frame.put("message", event.message());
+        frame.put("timeLogId", event.timeLogId());
+        frame.put("notificationId", event.notificationId());
+        frame.put("createdAt", event.createdAt());
+        send(session, frame);
+    }
+
+    private double[] parseFrame(String payload) {
+        int comma = payload.indexOf(',');
+        if (comma < 0) {
+            return null;
+        }
+        try {
+            double latitude = Double.parseDouble(payload.substring(0, comma).trim());
+            double longitude = Double.parseDouble(payload.substring(comma + 1).trim());
+            // parseDouble accepts NaN and Infinity, and NaN slips through the range check
+            if (!Double.isFinite(latitude) || !Double.isFinite(longitude)
+                    || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+                return null;
+            }
+            return new double[] { latitude, longitude };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void send(WebSocketSession session, Map<String, ?> frame) {
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(frame)));
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Failed to push frame to heartbeat socket {}: {}", session.getId(), e.getMessage());
+        }
+    }
+}
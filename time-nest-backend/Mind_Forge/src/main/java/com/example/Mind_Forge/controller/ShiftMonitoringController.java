@@ -5,15 +5,23 @@ import com.example.Mind_Forge.model.ShiftViolationNotification;
 import com.example.Mind_Forge.model.User;
 import com.example.Mind_Forge.repository.ShiftViolationNotificationRepository;
 import com.example.Mind_Forge.repository.UserRepository;
+import com.example.Mind_Forge.service.ActiveShiftState;
+import com.example.Mind_Forge.service.HeartbeatIngestQueue;
+import com.example.Mind_Forge.service.HeartbeatResult;
+import com.example.Mind_Forge.service.NotificationStreamService;
 import com.example.Mind_Forge.service.ShiftMonitoringService;
 import com.example.Mind_Forge.service.TimeLogService;
+import com.example.Mind_Forge.service.UnreadNotificationCounters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -23,9 +31,14 @@ import java.util.Optional;
 @RequestMapping("/shift-monitoring")
 public class ShiftMonitoringController {
 
+    private static final int MAX_BATCH_READ_IDS = 500;
+
     private final ShiftMonitoringService monitoringService;
     private final TimeLogService timeLogService;
+    private final HeartbeatIngestQueue heartbeatIngestQueue;
     private final ShiftViolationNotificationRepository notificationRepository;
+    private final NotificationStreamService notificationStreamService;
+    private final UnreadNotificationCounters unreadCounters;
     private final UserRepository userRepository;
 
     private static final Logger log = LoggerFactory.getLogger(ShiftMonitoringController.class);
@@ -33,17 +46,27 @@ public class ShiftMonitoringController {
     public ShiftMonitoringController(
             ShiftMonitoringService monitoringService,
             TimeLogService timeLogService,
+            HeartbeatIngestQueue heartbeatIngestQueue,
             ShiftViolationNotificationRepository notificationRepository,
+            NotificationStreamService notificationStreamService,
+            UnreadNotificationCounters unreadCounters,
             UserRepository userRepository
     ) {
         this.monitoringService = monitoringService;
         this.timeLogService = timeLogService;
+        this.heartbeatIngestQueue = heartbeatIngestQueue;
         this.notificationRepository = notificationRepository;
+        this.notificationStreamService = notificationStreamService;
+        this.unreadCounters = unreadCounters;
         this.userRepository = userRepository;
     }
 
     private User getAuthenticatedUser() {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        // The JWT filter has already loaded the user
+        if (principal instanceof User user) {
+            return user;
+        }
         String email = (principal instanceof UserDetails)
                 ? ((UserDetails) principal).getUsername()
                 : principal.toString();
@@ -54,34 +77,116 @@ public class ShiftMonitoringController {
     // Endpoint for frontend to send location heartbeats
     @PostMapping("/heartbeat")
     public ResponseEntity<?> sendLocationHeartbeat(@RequestBody LocationHeartbeatDto heartbeat) {
+        if (heartbeatIngestQueue.isEnabled()) {
+            return enqueueLocationHeartbeat(heartbeat);
+        }
         try {
-            timeLogService.updateLocationHeartbeat(heartbeat);
+            HeartbeatResult result = timeLogService.updateLocationHeartbeat(heartbeat);
             return ResponseEntity.ok().body(Map.of(
                     "success", true,
-                    "message", "Location updated"
+                    "message", "Location updated",
+                    "nextHeartbeatSeconds", result.nextHeartbeatSeconds()
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
+        }
+    }
+
+    // Accept the heartbeat and leave geofence evaluation to the ingest queue's workers -
+    // warnings and auto clock-outs reach the device through notifications / the socket
+    private ResponseEntity<?> enqueueLocationHeartbeat(LocationHeartbeatDto heartbeat) {
+        if (heartbeat.getLatitude() == null || heartbeat.getLongitude() == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                    "success", false,
+                    "error", "Latitude and longitude are required"
             ));
+        }
+
+        ActiveShiftState shift;
+        try {
+            shift = timeLogService.requireCurrentActiveShift();
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
                     "success", false,
                     "error", e.getMessage()
             ));
         }
+
+        if (!heartbeatIngestQueue.submit(shift, heartbeat.getLatitude(), heartbeat.getLongitude())) {
+            int retryAfterSeconds = heartbeatIngestQueue.getRetryAfterSeconds();
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(Map.of(
+                            "success", false,
+                            "error", "Heartbeat queue is full",
+                            "retryAfterSeconds", retryAfterSeconds
+                    ));
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "success", true,
+                "message", "Heartbeat accepted",
+                "nextHeartbeatSeconds", timeLogService.recommendIntervalSeconds(shift)
+        ));
     }
 
-    // Endpoint for frontend to poll for new notifications
+    // Endpoint for devices reconnecting after being offline - replays the queued heartbeats in one request
+    @PostMapping("/heartbeat/batch")
+    public ResponseEntity<?> sendLocationHeartbeatBatch(@RequestBody List<LocationHeartbeatDto> heartbeats) {
+        try {
+            HeartbeatResult result = timeLogService.updateLocationHeartbeats(heartbeats);
+            return ResponseEntity.ok().body(Map.of(
+                    "success", true,
+                    "message", "Location updated",
+                    "processed", result.processed(),
+                    "nextHeartbeatSeconds", result.nextHeartbeatSeconds()
+            ));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
+        }
+    }
+
+    // Server-Sent Events stream of the user's notifications as they are created. Reconnecting
+    // clients send Last-Event-ID and get the unread notifications they missed first.
+    @GetMapping(value = "/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        User user = getAuthenticatedUser();
+
+        Long afterId = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                afterId = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no") // Don't let a reverse proxy buffer the stream
+                .body(notificationStreamService.subscribe(user.getId(), afterId));
+    }
+
+    // Endpoint for older clients that still poll for new notifications
     @GetMapping("/notifications")
     public ResponseEntity<List<ShiftViolationNotification>> getUnreadNotifications() {
         User user = getAuthenticatedUser();
         List<ShiftViolationNotification> notifications =
                 notificationRepository.findByUserAndIsReadFalseOrderByCreatedAtDesc(user);
 
-        // Mark as delivered (will be marked as read when user dismisses)
-        notifications.forEach(n -> {
-            if (!n.getIsDelivered()) {
-                n.setIsDelivered(true);
-            }
-        });
-        notificationRepository.saveAll(notifications);
+        // Mark as delivered in one statement (will be marked as read when user dismisses).
+        // Bounded by the newest id returned so rows created since aren't marked unseen.
+        if (!notifications.isEmpty()) {
+            long newestId = notifications.stream().mapToLong(ShiftViolationNotification::getId).max().getAsLong();
+            notificationRepository.markDeliveredUpTo(user.getId(), newestId);
+            notifications.forEach(n -> n.setIsDelivered(true));
+        }
 
         return ResponseEntity.ok(notifications);
     }
@@ -91,31 +196,54 @@ public class ShiftMonitoringController {
     public ResponseEntity<?> markNotificationRead(@PathVariable Long id) {
         User user = getAuthenticatedUser();
 
-        Optional<ShiftViolationNotification> notificationOpt =
-                notificationRepository.findById(id);
+        int updated = notificationRepository.markReadByIds(user.getId(), List.of(id));
+        if (updated > 0) {
+            unreadCounters.notificationsRead(user.getId(), updated);
+            return ResponseEntity.ok().body(Map.of("success", true));
+        }
 
+        // Nothing changed - missing, someone else's, or already read
+        Optional<ShiftViolationNotification> notificationOpt = notificationRepository.findById(id);
         if (notificationOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-
-        ShiftViolationNotification notification = notificationOpt.get();
-
-        if (!notification.getUser().getId().equals(user.getId())) {
+        if (!notificationOpt.get().getUser().getId().equals(user.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        return ResponseEntity.ok().body(Map.of("success", true));
+    }
 
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+    // Mark several notifications as read - ids that aren't the user's are ignored
+    @PutMapping("/notifications/read")
+    public ResponseEntity<?> markNotificationsRead(@RequestBody List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_READ_IDS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                    "success", false,
+                    "error", "Between 1 and " + MAX_BATCH_READ_IDS + " notification ids are required"
+            ));
+        }
+        User user = getAuthenticatedUser();
 
-        return ResponseEntity.ok().body(Map.of("success", true));
+        int updated = notificationRepository.markReadByIds(user.getId(), ids);
+        unreadCounters.notificationsRead(user.getId(), updated);
+        return ResponseEntity.ok().body(Map.of("success", true, "updated", updated));
+    }
+
+    // Mark every unread notification of the user as read
+    @PutMapping("/notifications/read-all")
+    public ResponseEntity<?> markAllNotificationsRead() {
+        User user = getAuthenticatedUser();
+
+        int updated = notificationRepository.markAllRead(user.getId());
+        unreadCounters.notificationsRead(user.getId(), updated);
+        return ResponseEntity.ok().body(Map.of("success", true, "updated", updated));
     }
 
-    // Get count of unread notifications
+    // Get count of unread notifications - served from the in-memory counters
     @GetMapping("/notifications/count")
     public ResponseEntity<Long> getUnreadCount() {
         User user = getAuthenticatedUser();
-        Long count = notificationRepository.countByUserAndIsReadFalse(user);
-        return ResponseEntity.ok(count);
+        return ResponseEntity.ok((long) unreadCounters.getUnreadCount(user.getId()));
     }
 
     // Endpoint for executives to manually trigger monitoring check (testing/debugging)
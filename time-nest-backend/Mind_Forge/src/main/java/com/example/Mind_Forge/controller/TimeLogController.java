@@ -5,6 +5,7 @@ import com.example.Mind_Forge.dto.timelog.UpdateTimeLogDto;
 import com.example.Mind_Forge.model.TimeLog;
 import com.example.Mind_Forge.response.TimeLogResponse;
 import com.example.Mind_Forge.service.TimeLogService;
+import com.example.Mind_Forge.service.TrackPoint;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -28,6 +29,11 @@ public class TimeLogController {
         return ResponseEntity.ok(TimeLogResponse.fromEntity(log));
     }
 
+    @GetMapping("/{id}/track")
+    public ResponseEntity<List<TrackPoint>> getShiftTrack(@PathVariable Long id) {
+        return ResponseEntity.ok(timeLogService.getShiftTrack(id));
+    }
+
     @GetMapping("/me")
     public ResponseEntity<List<TimeLogResponse>> getMyTimeLogs() {
         List<TimeLogResponse> response = timeLogService.displayUserTimeLogs().stream()
@@ -1,6 +1,7 @@
 package com.example.Mind_Forge.controller;
 
 import com.example.Mind_Forge.dto.workarea.CreateWorkAreaDto;
+import com.example.Mind_Forge.dto.workarea.NearbyWorkAreaDto;
 import com.example.Mind_Forge.dto.workarea.UpdateWorkAreaDto;
 import com.example.Mind_Forge.dto.workarea.WorkAreaResponseDto;
 import com.example.Mind_Forge.model.WorkArea;
@@ -39,7 +40,8 @@ public class WorkAreaController {
                 dto.getAddress(),
                 dto.getLatitude(),
                 dto.getLongitude(),
-                dto.getRadiusMeters());
+                dto.getRadiusMeters(),
+                dto.getPolygon());
 
         return ResponseEntity.ok(new WorkAreaResponseDto(created));
     }
@@ -74,6 +76,26 @@ public class WorkAreaController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get active work areas near a point, closest first. With the default search radius of 0
+     * only the areas whose geofence contains the point are returned.
+     */
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyWorkAreaDto>> getNearbyWorkAreas(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(defaultValue = "0") Double radiusMeters) {
+        log.debug("Received request for work areas near {}, {} (search radius {} meters)",
+                latitude, longitude, radiusMeters);
+
+        List<NearbyWorkAreaDto> response = workAreaService.findNearbyWorkAreas(latitude, longitude, radiusMeters)
+                .stream()
+                .map(NearbyWorkAreaDto::new)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Get a specific work area by ID
      */
@@ -102,6 +124,7 @@ public class WorkAreaController {
                 dto.getLatitude(),
                 dto.getLongitude(),
                 dto.getRadiusMeters(),
+                dto.getPolygon(),
                 dto.getActive());
 
         return ResponseEntity.ok(new WorkAreaResponseDto(updated));
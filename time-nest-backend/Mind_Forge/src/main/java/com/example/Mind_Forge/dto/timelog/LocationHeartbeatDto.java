@@ -3,13 +3,13 @@ package com.example.Mind_Forge.dto.timelog;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
 
 @Getter
 @Setter
 public class LocationHeartbeatDto {
-
     private Double latitude;
     private Double longitude;
-    private LocalDateTime timestamp;
+    // When the device took the position - sent as an ISO-8601 instant (e.g. 2025-01-01T10:00:00Z)
+    private Instant timestamp;
 }
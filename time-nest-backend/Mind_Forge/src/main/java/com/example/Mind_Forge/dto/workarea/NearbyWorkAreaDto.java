@@ -0,0 +1,37 @@
+package com.example.Mind_Forge.dto.workarea;
+
+import com.example.Mind_Forge.service.NearbyWorkArea;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+public class NearbyWorkAreaDto {
+    private Long id;
+    private String name;
+    private String address;
+    private Double latitude;
+    private Double longitude;
+    private Double radiusMeters;
+    private Double distanceMeters;
+    // Meters inside the boundary (negative when outside) - comparable across circles and polygons
+    private Double marginMeters;
+    private Boolean withinGeofence;
+
+    public NearbyWorkAreaDto(NearbyWorkArea nearby) {
+        this.id = nearby.workArea().id();
+        this.name = nearby.workArea().name();
+        this.address = nearby.workArea().address();
+        this.latitude = nearby.workArea().latitude();
+        this.longitude = nearby.workArea().longitude();
+        this.radiusMeters = nearby.workArea().radiusMeters();
+        this.distanceMeters = nearby.distanceMeters();
+        this.marginMeters = nearby.marginMeters();
+        this.withinGeofence = nearby.withinGeofence();
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.Mind_Forge.dto.workarea;
 
+import java.util.List;
+
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -15,5 +17,7 @@ public class UpdateWorkAreaDto {
     private Double latitude;
     private Double longitude;
     private Double radiusMeters;
+    // [[latitude, longitude], ...] - makes this a polygon work area
+    private List<List<Double>> polygon;
     private Boolean active;
 }
@@ -1,6 +1,7 @@
 package com.example.Mind_Forge.dto.workarea;
 
 import com.example.Mind_Forge.model.WorkArea;
+import com.example.Mind_Forge.service.GeofenceGeometry;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -8,6 +9,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,6 +22,7 @@ public class WorkAreaResponseDto {
     private Double latitude;
     private Double longitude;
     private Double radiusMeters;
+    private List<List<Double>> polygon;
     private Boolean active;
     private LocalDateTime createdAt;
 
@@ -30,6 +33,11 @@ public class WorkAreaResponseDto {
         this.latitude = workArea.getLatitude();
         this.longitude = workArea.getLongitude();
         this.radiusMeters = workArea.getRadiusMeters();
+        if (workArea.getPolygon() != null) {
+            this.polygon = GeofenceGeometry.parseVertices(workArea.getPolygon()).stream()
+                    .map(vertex -> List.of(vertex[0], vertex[1]))
+                    .toList();
+        }
         this.active = workArea.getActive();
         this.createdAt = workArea.getCreatedAt();
     }
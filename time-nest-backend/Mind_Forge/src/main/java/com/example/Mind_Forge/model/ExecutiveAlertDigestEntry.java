@@ -0,0 +1,57 @@
+package com.example.Mind_Forge.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Auto clock-out waiting to go out in the next executive digest email of its company
+ * (monitoring.executive-alerts.digest.enabled). Written in the monitoring transaction and
+ * removed in the transaction that queues the digest.
+ */
+@Entity
+@Table(name = "executive_alert_digest_entries")
+@Getter
+@Setter
+public class ExecutiveAlertDigestEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "company_name")
+    private String companyName;
+
+    @Column(name = "employee_name")
+    private String employeeName;
+
+    @Column(name = "employee_email")
+    private String employeeEmail;
+
+    @Column(name = "work_area_name")
+    private String workAreaName;
+
+    @Column(name = "clockout_time", nullable = false)
+    private LocalDateTime clockoutTime;
+
+    @Column(name = "reason", length = 500)
+    private String reason;
+
+    @Column(name = "hours")
+    private Double hours;
+
+    @Column(name = "distance")
+    private Double distance;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Default constructor
+    public ExecutiveAlertDigestEntry() {
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.Mind_Forge.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only chunk of a shift's location history.
+ * Points are delta-encoded into encodedPoints (see LocationTrackCodec) instead of one row per heartbeat.
+ * Segments never span two days, and rows are only ever inserted or deleted with their shift.
+ */
+@Entity
+@Table(name = "location_track_segments", indexes = {
+    @Index(name = "idx_track_time_log_start", columnList = "time_log_id, segment_start")
+})
+@Getter
+@Setter
+public class LocationTrackSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain column rather than a relation - the track is written in bulk over JDBC
+    @Column(name = "time_log_id", nullable = false)
+    private Long timeLogId;
+
+    @Column(name = "segment_start", nullable = false)
+    private LocalDateTime segmentStart;
+
+    @Column(name = "segment_end", nullable = false)
+    private LocalDateTime segmentEnd;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    @Column(name = "encoded_points", nullable = false)
+    private byte[] encodedPoints;
+
+    // Default constructor
+    public LocationTrackSegment() {
+    }
+}
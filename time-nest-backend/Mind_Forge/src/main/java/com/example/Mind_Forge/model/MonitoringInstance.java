@@ -0,0 +1,29 @@
+package com.example.Mind_Forge.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Liveness row of an app instance taking part in monitoring, refreshed on every lease renewal.
+ * The number of live instances decides each instance's share of the partitions.
+ */
+@Entity
+@Table(name = "monitoring_instances")
+@Getter
+@Setter
+public class MonitoringInstance {
+
+    @Id
+    @Column(name = "instance_id")
+    private String instanceId;
+
+    @Column(name = "last_seen", nullable = false)
+    private LocalDateTime lastSeen;
+
+    // Default constructor
+    public MonitoringInstance() {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.Mind_Forge.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease on one monitoring partition (a bucket of company ids) held by an app instance.
+ * Leases are claimed, renewed and released over JDBC by MonitoringLeaseManager; the entity
+ * only exists so the table is created with the rest of the schema.
+ */
+@Entity
+@Table(name = "monitoring_partition_leases")
+@Getter
+@Setter
+public class MonitoringPartitionLease {
+
+    @Id
+    @Column(name = "partition_id")
+    private Integer partitionId;
+
+    // Instance id of the holder, null when the partition is free
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    // Default constructor
+    public MonitoringPartitionLease() {
+    }
+}
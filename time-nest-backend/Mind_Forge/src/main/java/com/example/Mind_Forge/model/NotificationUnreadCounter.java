@@ -0,0 +1,33 @@
+package com.example.Mind_Forge.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted unread-notification count of a user, behind the in-memory counters that answer
+ * badge requests. Kept up to date by batched deltas and periodically recomputed from
+ * shift_violation_notifications.
+ */
+@Entity
+@Table(name = "notification_unread_counters")
+@Getter
+@Setter
+public class NotificationUnreadCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount = 0;
+
+    @Column(name = "reconciled_at")
+    private LocalDateTime reconciledAt;
+
+    // Default constructor
+    public NotificationUnreadCounter() {
+    }
+}
@@ -7,7 +7,9 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "shift_violation_notifications")
+@Table(name = "shift_violation_notifications", indexes = {
+    @Index(name = "idx_notification_user_read_created", columnList = "user_id, is_read, created_at")
+})
 @Getter
 @Setter
 public class ShiftViolationNotification {
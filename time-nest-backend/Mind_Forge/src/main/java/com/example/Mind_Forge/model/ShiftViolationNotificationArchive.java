@@ -0,0 +1,61 @@
+package com.example.Mind_Forge.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read notification moved out of shift_violation_notifications by the retention job.
+ * Keeps the original id and plain foreign key ids, so archived rows don't hold up
+ * deleting a timelog or user.
+ */
+@Entity
+@Table(name = "shift_violation_notifications_archive", indexes = {
+    @Index(name = "idx_notification_archive_user_created", columnList = "user_id, created_at")
+})
+@Getter
+@Setter
+public class ShiftViolationNotificationArchive {
+
+    @Id
+    private Long id;
+
+    @Column(name = "time_log_id", nullable = false)
+    private Long timeLogId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "notification_type", nullable = false)
+    private String notificationType;
+
+    @Column(name = "message", nullable = false, length = 500)
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "is_read")
+    private Boolean isRead;
+
+    @Column(name = "is_delivered")
+    private Boolean isDelivered;
+
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    @Column(name = "distance_from_workarea")
+    private Double distanceFromWorkarea;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Default constructor
+    public ShiftViolationNotificationArchive() {
+    }
+}
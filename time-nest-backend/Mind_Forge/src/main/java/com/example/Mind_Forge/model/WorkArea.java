@@ -33,6 +33,24 @@ public class WorkArea {
     @Column(name = "radius_meters", nullable = false)
     private Double radiusMeters;
 
+    // Polygon geofence as "lat,lng;lat,lng;..." - null for a plain circle. For polygons the
+    // centre and radius above describe a circle covering the polygon.
+    @Column(columnDefinition = "TEXT")
+    private String polygon;
+
+    // Bounding box of the geofence, kept in step with the geometry by WorkAreaService
+    @Column(name = "min_latitude")
+    private Double minLatitude;
+
+    @Column(name = "max_latitude")
+    private Double maxLatitude;
+
+    @Column(name = "min_longitude")
+    private Double minLongitude;
+
+    @Column(name = "max_longitude")
+    private Double maxLongitude;
+
     @Column(nullable = false)
     private Boolean active = true;
 
@@ -0,0 +1,105 @@
+package com.example.Mind_Forge.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * JDBC access to the email outbox (PostgreSQL).
+ * enqueue() joins the caller's transaction, so the email only exists if the triggering change
+ * commits. Dispatchers claim due messages with FOR UPDATE SKIP LOCKED and a lock expiry, so
+ * several instances can drain the outbox at once and a message claimed by an instance that
+ * died is picked up again once its lock expires.
+ */
+@Repository
+public class EmailOutboxRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO email_outbox (recipient, subject, html_content, status, attempts, next_attempt_at, created_at) " +
+            "VALUES (?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    // ? = locked until, now, now, limit
+    private static final String CLAIM_DUE_SQL =
+            "UPDATE email_outbox SET status = 'SENDING', locked_until = ?, attempts = attempts + 1 " +
+            "WHERE id IN (" +
+            "  SELECT id FROM email_outbox " +
+            "  WHERE (status = 'PENDING' AND next_attempt_at <= ?) OR (status = 'SENDING' AND locked_until < ?) " +
+            "  ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, recipient, subject, html_content, attempts";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmailOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record OutboxEmail(Long id, String recipient, String subject, String htmlContent, int attempts) {
+    }
+
+    public void enqueue(String recipient, String subject, String htmlContent, LocalDateTime now) {
+        jdbcTemplate.update(INSERT_SQL, recipient, subject, htmlContent, Timestamp.valueOf(now), Timestamp.valueOf(now));
+    }
+
+    // One JDBC batch for a whole fan-out
+    public void enqueueAll(List<OutboxEmail> emails, LocalDateTime now) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(emails.size());
+        for (OutboxEmail email : emails) {
+            batch.add(new Object[] { email.recipient(), email.subject(), email.htmlContent(),
+                    Timestamp.valueOf(now), Timestamp.valueOf(now) });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+    }
+
+    /*
+     * Mark up to limit due messages as being sent by the caller until lockedUntil, counting the attempt.
+     */
+    public List<OutboxEmail> claimDue(LocalDateTime now, LocalDateTime lockedUntil, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE_SQL,
+                (rs, rowNum) -> new OutboxEmail(
+                        rs.getLong("id"),
+                        rs.getString("recipient"),
+                        rs.getString("subject"),
+                        rs.getString("html_content"),
+                        rs.getInt("attempts")),
+                Timestamp.valueOf(lockedUntil), Timestamp.valueOf(now), Timestamp.valueOf(now), limit);
+    }
+
+    public void delete(Long id) {
+        jdbcTemplate.update("DELETE FROM email_outbox WHERE id = ?", id);
+    }
+
+    public void scheduleRetry(Long id, LocalDateTime nextAttemptAt, String error) {
+        jdbcTemplate.update(
+                "UPDATE email_outbox SET status = 'PENDING', next_attempt_at = ?, locked_until = NULL, last_error = ? " +
+                "WHERE id = ?",
+                Timestamp.valueOf(nextAttemptAt), truncate(error), id);
+    }
+
+    // Back to PENDING without using up an attempt - the send was never tried
+    public void release(Long id, LocalDateTime nextAttemptAt, String error) {
+        jdbcTemplate.update(
+                "UPDATE email_outbox SET status = 'PENDING', attempts = GREATEST(attempts - 1, 0), " +
+                "  next_attempt_at = ?, locked_until = NULL, last_error = ? WHERE id = ?",
+                Timestamp.valueOf(nextAttemptAt), truncate(error), id);
+    }
+
+    public void markDead(Long id, String error) {
+        jdbcTemplate.update(
+                "UPDATE email_outbox SET status = 'DEAD', locked_until = NULL, last_error = ? WHERE id = ?",
+                truncate(error), id);
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
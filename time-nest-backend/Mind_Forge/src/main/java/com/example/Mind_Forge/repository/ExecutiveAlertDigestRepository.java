@@ -0,0 +1,71 @@
+package com.example.Mind_Forge.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * JDBC access to executive_alert_digest_entries (PostgreSQL).
+ * takeBatch() deletes and returns entries in one statement, skipping rows another instance
+ * is taking, so each auto clock-out ends up in exactly one digest. Callers own the transaction.
+ */
+@Repository
+public class ExecutiveAlertDigestRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO executive_alert_digest_entries (company_id, company_name, employee_name, employee_email, " +
+            "  work_area_name, clockout_time, reason, hours, distance, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // ? = limit
+    private static final String TAKE_BATCH_SQL =
+            "DELETE FROM executive_alert_digest_entries WHERE id IN (" +
+            "  SELECT id FROM executive_alert_digest_entries ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, company_id, company_name, employee_name, employee_email, work_area_name, " +
+            "  clockout_time, reason, hours, distance";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExecutiveAlertDigestRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record DigestEntry(Long companyId, String companyName, String employeeName, String employeeEmail,
+                              String workAreaName, LocalDateTime clockoutTime, String reason, double hours,
+                              double distance) {
+    }
+
+    public void addAll(List<DigestEntry> entries, LocalDateTime now) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(entries.size());
+        for (DigestEntry entry : entries) {
+            batch.add(new Object[] {
+                    entry.companyId(), entry.companyName(), entry.employeeName(), entry.employeeEmail(),
+                    entry.workAreaName(), Timestamp.valueOf(entry.clockoutTime()), entry.reason(),
+                    entry.hours(), entry.distance(), Timestamp.valueOf(now) });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+    }
+
+    /*
+     * Remove and return up to limit of the oldest entries.
+     */
+    public List<DigestEntry> takeBatch(int limit) {
+        return jdbcTemplate.query(TAKE_BATCH_SQL, (rs, rowNum) -> new DigestEntry(
+                rs.getLong("company_id"),
+                rs.getString("company_name"),
+                rs.getString("employee_name"),
+                rs.getString("employee_email"),
+                rs.getString("work_area_name"),
+                rs.getTimestamp("clockout_time").toLocalDateTime(),
+                rs.getString("reason"),
+                rs.getDouble("hours"),
+                rs.getDouble("distance")), limit);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.Mind_Forge.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * Plain JDBC batch writer for the heartbeat write-behind flush and the location track store.
+ * Hibernate batching is disabled for the Supabase transaction pooler, so the
+ * flush goes through JdbcTemplate.batchUpdate instead: one connection checkout,
+ * one transaction and one round trip per chunk, regardless of how many shifts changed.
+ */
+@Repository
+public class HeartbeatBatchRepository {
+
+    private static final String UPDATE_HEARTBEAT_SQL =
+            "UPDATE timelogs SET current_latitude = ?, current_longitude = ?, last_location_check = ?, " +
+            "violation_count = ?, first_violation_time = ? " +
+            "WHERE id = ? AND is_active_shift = true";
+
+    private static final String INSERT_TRACK_SEGMENT_SQL =
+            "INSERT INTO location_track_segments (time_log_id, segment_start, segment_end, point_count, encoded_points) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public HeartbeatBatchRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public record HeartbeatUpdate(Long timeLogId, Double latitude, Double longitude,
+                                  LocalDateTime lastLocationCheck, int violationCount,
+                                  LocalDateTime firstViolationTime) {
+    }
+
+    /*
+     * Write all updates in a single transaction, sent to the driver in chunks of batchSize.
+     * Returns the rows updated per update, in order - 0 for a shift closed since the heartbeat
+     * was taken (skipped by the WHERE clause), or -2 (SUCCESS_NO_INFO) if the driver doesn't say.
+     */
+    public int[] updateHeartbeats(List<HeartbeatUpdate> updates, int batchSize) {
+        if (updates.isEmpty()) {
+            return new int[0];
+        }
+        int[] updated = transactionTemplate.execute(status -> {
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_HEARTBEAT_SQL, updates, batchSize, (ps, update) -> {
+                setDouble(ps, 1, update.latitude());
+                setDouble(ps, 2, update.longitude());
+                setTimestamp(ps, 3, update.lastLocationCheck());
+                ps.setInt(4, update.violationCount());
+                setTimestamp(ps, 5, update.firstViolationTime());
+                ps.setLong(6, update.timeLogId());
+            });
+            int[] perUpdate = new int[updates.size()];
+            int index = 0;
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    perUpdate[index++] = count;
+                }
+            }
+            return perUpdate;
+        });
+        return Objects.requireNonNull(updated);
+    }
+
+    public record TrackSegmentInsert(Long timeLogId, LocalDateTime segmentStart, LocalDateTime segmentEnd,
+                                     int pointCount, byte[] encodedPoints) {
+    }
+
+    /*
+     * Append sealed location track segments. With reWriteBatchedInserts the driver
+     * turns each chunk into a single multi-row INSERT.
+     */
+    public void insertTrackSegments(List<TrackSegmentInsert> segments, int batchSize) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_TRACK_SEGMENT_SQL, segments, batchSize, (ps, segment) -> {
+                    ps.setLong(1, segment.timeLogId());
+                    setTimestamp(ps, 2, segment.segmentStart());
+                    setTimestamp(ps, 3, segment.segmentEnd());
+                    ps.setInt(4, segment.pointCount());
+                    ps.setBytes(5, segment.encodedPoints());
+                }));
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        }
+    }
+}
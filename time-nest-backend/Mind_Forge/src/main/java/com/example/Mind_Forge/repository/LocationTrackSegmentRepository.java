@@ -0,0 +1,23 @@
+package com.example.Mind_Forge.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.stereotype.Repository;
+
+import com.example.Mind_Forge.model.LocationTrackSegment;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+public interface LocationTrackSegmentRepository extends JpaRepository<LocationTrackSegment, Long> {
+    /*
+     * Segments of one shift in time order - served by idx_track_time_log_start
+     */
+    List<LocationTrackSegment> findByTimeLogIdOrderBySegmentStartAsc(Long timeLogId);
+
+    @Modifying
+    @Transactional
+    void deleteByTimeLogId(Long timeLogId);
+}
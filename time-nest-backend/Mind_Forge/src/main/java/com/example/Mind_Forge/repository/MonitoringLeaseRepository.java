@@ -0,0 +1,109 @@
+package com.example.Mind_Forge.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * JDBC access to the monitoring lease tables.
+ * Every ownership change is a single conditional UPDATE (compare-and-set on the current
+ * holder and expiry), so two instances racing for a partition can't both win, without
+ * SELECT ... FOR UPDATE or vendor-specific syntax - the same statements run on H2 in tests.
+ */
+@Repository
+public class MonitoringLeaseRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MonitoringLeaseRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /*
+     * Make sure there is a lease row for every partition. Safe to run from several instances at once.
+     */
+    public void ensurePartitions(int partitionCount) {
+        Set<Integer> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT partition_id FROM monitoring_partition_leases", Integer.class));
+        for (int partition = 0; partition < partitionCount; partition++) {
+            if (existing.contains(partition)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.update("INSERT INTO monitoring_partition_leases (partition_id) VALUES (?)", partition);
+            } catch (DuplicateKeyException e) {
+                // Another instance created it first
+            }
+        }
+    }
+
+    public void recordInstanceHeartbeat(String instanceId, LocalDateTime now) {
+        int updated = jdbcTemplate.update(
+                "UPDATE monitoring_instances SET last_seen = ? WHERE instance_id = ?", Timestamp.valueOf(now), instanceId);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO monitoring_instances (instance_id, last_seen) VALUES (?, ?)",
+                    instanceId, Timestamp.valueOf(now));
+        }
+    }
+
+    public int countLiveInstances(LocalDateTime seenSince) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM monitoring_instances WHERE last_seen >= ?", Integer.class,
+                Timestamp.valueOf(seenSince));
+        return count != null ? count : 0;
+    }
+
+    public int deleteInstancesNotSeenSince(LocalDateTime seenSince) {
+        return jdbcTemplate.update("DELETE FROM monitoring_instances WHERE last_seen < ?", Timestamp.valueOf(seenSince));
+    }
+
+    public void deleteInstance(String instanceId) {
+        jdbcTemplate.update("DELETE FROM monitoring_instances WHERE instance_id = ?", instanceId);
+    }
+
+    /*
+     * Extend every lease the instance still holds and return those partitions. A lease that
+     * expired and was taken over in the meantime no longer has this owner and is not renewed.
+     */
+    public List<Integer> renewLeases(String owner, LocalDateTime expiresAt) {
+        jdbcTemplate.update("UPDATE monitoring_partition_leases SET expires_at = ? WHERE owner = ?",
+                Timestamp.valueOf(expiresAt), owner);
+        return jdbcTemplate.queryForList(
+                "SELECT partition_id FROM monitoring_partition_leases WHERE owner = ? ORDER BY partition_id",
+                Integer.class, owner);
+    }
+
+    public List<Integer> findClaimablePartitions(LocalDateTime now) {
+        return jdbcTemplate.queryForList(
+                "SELECT partition_id FROM monitoring_partition_leases " +
+                "WHERE owner IS NULL OR expires_at IS NULL OR expires_at < ? ORDER BY partition_id",
+                Integer.class, Timestamp.valueOf(now));
+    }
+
+    /*
+     * @return true if this instance now holds the partition
+     */
+    public boolean claim(int partition, String owner, LocalDateTime now, LocalDateTime expiresAt) {
+        return jdbcTemplate.update(
+                "UPDATE monitoring_partition_leases SET owner = ?, expires_at = ? " +
+                "WHERE partition_id = ? AND (owner IS NULL OR expires_at IS NULL OR expires_at < ?)",
+                owner, Timestamp.valueOf(expiresAt), partition, Timestamp.valueOf(now)) == 1;
+    }
+
+    public void release(int partition, String owner) {
+        jdbcTemplate.update(
+                "UPDATE monitoring_partition_leases SET owner = NULL, expires_at = NULL " +
+                "WHERE partition_id = ? AND owner = ?", partition, owner);
+    }
+
+    public void releaseAll(String owner) {
+        jdbcTemplate.update(
+                "UPDATE monitoring_partition_leases SET owner = NULL, expires_at = NULL WHERE owner = ?", owner);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.Mind_Forge.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/*
+ * Retention batches for shift_violation_notifications (PostgreSQL).
+ * Each batch is a single auto-committed statement over at most batchSize rows, so it only
+ * ever holds a handful of row locks. SKIP LOCKED leaves rows another transaction (or another
+ * instance's retention job) is working on for a later batch instead of waiting for them.
+ */
+@Repository
+public class NotificationArchiveRepository {
+
+    // ? = created before, batch size, archived at
+    private static final String ARCHIVE_BATCH_SQL =
+            "WITH moved AS (" +
+            "  DELETE FROM shift_violation_notifications WHERE id IN (" +
+            "    SELECT id FROM shift_violation_notifications " +
+            "    WHERE is_read = true AND created_at < ? ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "  RETURNING id, time_log_id, user_id, notification_type, message, created_at, is_read, is_delivered, " +
+            "    latitude, longitude, distance_from_workarea" +
+            ") " +
+            "INSERT INTO shift_violation_notifications_archive (id, time_log_id, user_id, notification_type, message, " +
+            "  created_at, is_read, is_delivered, latitude, longitude, distance_from_workarea, archived_at) " +
+            "SELECT id, time_log_id, user_id, notification_type, message, created_at, is_read, is_delivered, " +
+            "  latitude, longitude, distance_from_workarea, ? FROM moved " +
+            "ON CONFLICT (id) DO NOTHING";
+
+    // ? = created before, batch size
+    private static final String PURGE_BATCH_SQL =
+            "DELETE FROM shift_violation_notifications WHERE id IN (" +
+            "  SELECT id FROM shift_violation_notifications " +
+            "  WHERE is_read = true AND created_at < ? ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /*
+     * Move up to batchSize read notifications created before createdBefore into the archive table.
+     * @return rows moved
+     */
+    public int archiveReadBefore(LocalDateTime createdBefore, int batchSize, LocalDateTime now) {
+        return jdbcTemplate.update(ARCHIVE_BATCH_SQL, Timestamp.valueOf(createdBefore), batchSize, Timestamp.valueOf(now));
+    }
+
+    /*
+     * Delete up to batchSize read notifications created before createdBefore.
+     * @return rows deleted
+     */
+    public int purgeReadBefore(LocalDateTime createdBefore, int batchSize) {
+        return jdbcTemplate.update(PURGE_BATCH_SQL, Timestamp.valueOf(createdBefore), batchSize);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.Mind_Forge.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * JDBC access to notification_unread_counters (PostgreSQL).
+ * Deltas are applied in one batch per flush; reconcile() recomputes every counter from
+ * shift_violation_notifications in two statements. Callers own the transaction.
+ */
+@Repository
+public class NotificationCounterRepository {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE notification_unread_counters SET unread_count = GREATEST(unread_count + ?, 0) WHERE user_id = ?";
+
+    // ? = reconciled at
+    private static final String UPSERT_ACTUAL_COUNTS_SQL =
+            "INSERT INTO notification_unread_counters (user_id, unread_count, reconciled_at) " +
+            "SELECT user_id, COUNT(*), ? FROM shift_violation_notifications WHERE is_read = false GROUP BY user_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread_count = EXCLUDED.unread_count, " +
+            "  reconciled_at = EXCLUDED.reconciled_at";
+
+    // ? = reconciled at
+    private static final String ZERO_WITHOUT_UNREAD_SQL =
+            "UPDATE notification_unread_counters c SET unread_count = 0, reconciled_at = ? " +
+            "WHERE c.unread_count <> 0 AND NOT EXISTS (" +
+            "  SELECT 1 FROM shift_violation_notifications n WHERE n.user_id = c.user_id AND n.is_read = false)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationCounterRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /*
+     * Persisted count of the user, or null if the user has no counter row yet.
+     */
+    public Integer findUnreadCount(Long userId) {
+        List<Integer> counts = jdbcTemplate.queryForList(
+                "SELECT unread_count FROM notification_unread_counters WHERE user_id = ?", Integer.class, userId);
+        return counts.isEmpty() ? null : counts.get(0);
+    }
+
+    /*
+     * Count the user's unread notifications and store the result as their counter.
+     */
+    public int initializeFromNotifications(Long userId, LocalDateTime now) {
+        Integer actual = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM shift_violation_notifications WHERE user_id = ? AND is_read = false",
+                Integer.class, userId);
+        int count = actual != null ? actual : 0;
+        jdbcTemplate.update(
+                "INSERT INTO notification_unread_counters (user_id, unread_count, reconciled_at) VALUES (?, ?, ?) " +
+                "ON CONFLICT (user_id) DO UPDATE SET unread_count = EXCLUDED.unread_count, " +
+                "  reconciled_at = EXCLUDED.reconciled_at",
+                userId, count, Timestamp.valueOf(now));
+        return count;
+    }
+
+    /*
+     * Add each user's pending delta to their counter. Users without a row are skipped - their
+     * counter is created from the notifications table when first read.
+     */
+    public void applyDeltas(Map<Long, Integer> deltasByUserId) {
+        if (deltasByUserId.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(deltasByUserId.size());
+        deltasByUserId.forEach((userId, delta) -> batch.add(new Object[] { delta, userId }));
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, batch);
+    }
+
+    /*
+     * Recompute every counter from the notifications table.
+     * @return counters that were set to zero because the user has no unread notifications left
+     */
+    public int reconcile(LocalDateTime now) {
+        jdbcTemplate.update(UPSERT_ACTUAL_COUNTS_SQL, Timestamp.valueOf(now));
+        return jdbcTemplate.update(ZERO_WITHOUT_UNREAD_SQL, Timestamp.valueOf(now));
+    }
+
+    public Map<Long, Integer> findUnreadCounts(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return jdbcTemplate.execute((ConnectionCallback<Map<Long, Integer>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT user_id, unread_count FROM notification_unread_counters WHERE user_id = ANY(?)")) {
+                Array ids = connection.createArrayOf("bigint", userIds.toArray());
+                ps.setArray(1, ids);
+                Map<Long, Integer> counts = new HashMap<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        counts.put(rs.getLong("user_id"), rs.getInt("unread_count"));
+                    }
+                }
+                ids.free();
+                return counts;
+            }
+        });
+    }
+}
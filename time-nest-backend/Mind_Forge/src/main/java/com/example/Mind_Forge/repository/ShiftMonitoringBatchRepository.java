@@ -0,0 +1,179 @@
+package com.example.Mind_Forge.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Set-based statements for the monitoring sweep (PostgreSQL).
+ * Each statement takes a shard's candidate shift ids, re-checks the violation rules in its
+ * WHERE clause, updates every matching timelog and inserts the matching notifications in
+ * the same round trip (a data-modifying CTE), so a surge of stale shifts costs two statements
+ * per shard rather than a load/save per shift. Callers own the transaction.
+ */
+@Repository
+public class ShiftMonitoringBatchRepository {
+
+    // ? = first violation time, candidate ids, stale threshold, warning message, created at
+    private static final String WARN_STALE_SQL =
+            "WITH warned AS (" +
+            "  UPDATE timelogs SET violation_count = 1, first_violation_time = ? " +
+            "  WHERE id = ANY(?) AND is_active_shift = true AND work_area_id IS NOT NULL " +
+            "    AND COALESCE(violation_count, 0) = 0 " +
+            "    AND (last_location_check IS NULL OR last_location_check <= ?) " +
+            "  RETURNING id, user_id, current_latitude, current_longitude" +
+            "), notified AS (" +
+            "  INSERT INTO shift_violation_notifications (time_log_id, user_id, notification_type, message, " +
+            "    created_at, is_read, is_delivered, latitude, longitude, distance_from_workarea) " +
+            "  SELECT id, user_id, 'WARNING', ?, ?, false, false, current_latitude, current_longitude, 0 FROM warned " +
+            "  RETURNING id, time_log_id, user_id, message, created_at" +
+            ") " +
+            "SELECT id, time_log_id, user_id, message, created_at FROM notified";
+
+    // ? = end time, reason, end time (hours), candidate ids, grace threshold, stale threshold,
+    //     clock-out message, created at
+    private static final String AUTO_CLOCK_OUT_STALE_SQL =
+            "WITH closed AS (" +
+            "  UPDATE timelogs SET end_time = ?, is_active_shift = false, auto_clocked_out = true, " +
+            "    violation_count = 2, auto_clockout_reason = ?, " +
+            "    hours = EXTRACT(EPOCH FROM (CAST(? AS timestamp) - start_time)) / 3600.0 " +
+            "  WHERE id = ANY(?) AND is_active_shift = true AND work_area_id IS NOT NULL " +
+            "    AND violation_count = 1 " +
+            "    AND (first_violation_time IS NULL OR first_violation_time <= ?) " +
+            "    AND (last_location_check IS NULL OR last_location_check <= ?) " +
+            "  RETURNING id, user_id, company_id, work_area_id, end_time, hours, current_latitude, current_longitude" +
+            "), notified AS (" +
+            "  INSERT INTO shift_violation_notifications (time_log_id, user_id, notification_type, message, " +
+            "    created_at, is_read, is_delivered, latitude, longitude, distance_from_workarea) " +
+            "  SELECT id, user_id, 'AUTO_CLOCKOUT', ?, ?, false, false, current_latitude, current_longitude, 0 FROM closed " +
+            "  RETURNING id, time_log_id, message, created_at" +
+            ") " +
+            "SELECT c.id, c.user_id, c.company_id, c.end_time, c.hours, " +
+            "  n.id AS notification_id, n.message, n.created_at, " +
+            "  u.username, u.email, co.name AS company_name, w.name AS work_area_name " +
+            "FROM closed c " +
+            "JOIN notified n ON n.time_log_id = c.id " +
+            "JOIN users u ON u.id = c.user_id " +
+            "LEFT JOIN companies co ON co.id = c.company_id " +
+            "LEFT JOIN work_areas w ON w.id = c.work_area_id";
+
+    private static final String LOCK_ACTIVE_SHIFT_SQL =
+            "SELECT id FROM timelogs WHERE id = ? AND is_active_shift = true FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShiftMonitoringBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record WarnedShift(Long timeLogId, Long userId, Long notificationId, String message,
+                              LocalDateTime createdAt) {
+    }
+
+    public record ClockedOutShift(Long timeLogId, Long userId, Long companyId, LocalDateTime endTime, double hours,
+                                  Long notificationId, String message, LocalDateTime createdAt,
+                                  String username, String email, String companyName, String workAreaName) {
+    }
+
+    /*
+     * Row-lock an active shift for the rest of the transaction, so two instances acting on the
+     * same shift's deadline take turns and the second sees what the first did.
+     * Returns false if the shift is no longer active.
+     */
+    public boolean lockActiveShift(Long timeLogId) {
+        return !jdbcTemplate.queryForList(LOCK_ACTIVE_SHIFT_SQL, Long.class, timeLogId).isEmpty();
+    }
+
+    /*
+     * Move every candidate that is still compliant on paper but hasn't sent a heartbeat since
+     * staleBefore to violation 1, with a WARNING notification each.
+     */
+    public List<WarnedShift> warnStaleShifts(List<Long> timeLogIds, LocalDateTime now, LocalDateTime staleBefore,
+                                             String message) {
+        if (timeLogIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.execute((ConnectionCallback<List<WarnedShift>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(WARN_STALE_SQL)) {
+                Array ids = connection.createArrayOf("bigint", timeLogIds.toArray());
+                ps.setTimestamp(1, Timestamp.valueOf(now));
+                ps.setArray(2, ids);
+                ps.setTimestamp(3, Timestamp.valueOf(staleBefore));
+                ps.setString(4, message);
+                ps.setTimestamp(5, Timestamp.valueOf(now));
+                List<WarnedShift> warned = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        warned.add(new WarnedShift(
+                                rs.getLong("time_log_id"),
+                                rs.getLong("user_id"),
+                                rs.getLong("id"),
+                                rs.getString("message"),
+                                rs.getTimestamp("created_at").toLocalDateTime()));
+                    }
+                }
+                ids.free();
+                return warned;
+            }
+        });
+    }
+
+    /*
+     * Auto clock out every candidate at violation 1 whose grace period ended by graceEndedBefore
+     * and that is still without a heartbeat, computing hours worked in the database.
+     */
+    public List<ClockedOutShift> autoClockOutStaleShifts(List<Long> timeLogIds, LocalDateTime now,
+                                                         LocalDateTime graceEndedBefore, LocalDateTime staleBefore,
+                                                         String reason, String message) {
+        if (timeLogIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.execute((ConnectionCallback<List<ClockedOutShift>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(AUTO_CLOCK_OUT_STALE_SQL)) {
+                Array ids = connection.createArrayOf("bigint", timeLogIds.toArray());
+                ps.setTimestamp(1, Timestamp.valueOf(now));
+                ps.setString(2, reason);
+                ps.setTimestamp(3, Timestamp.valueOf(now));
+                ps.setArray(4, ids);
+                ps.setTimestamp(5, Timestamp.valueOf(graceEndedBefore));
+                ps.setTimestamp(6, Timestamp.valueOf(staleBefore));
+                ps.setString(7, message);
+                ps.setTimestamp(8, Timestamp.valueOf(now));
+                List<ClockedOutShift> closed = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        closed.add(new ClockedOutShift(
+                                rs.getLong("id"),
+                                rs.getLong("user_id"),
+                                getLong(rs, "company_id"),
+                                rs.getTimestamp("end_time").toLocalDateTime(),
+                                rs.getDouble("hours"),
+                                rs.getLong("notification_id"),
+                                rs.getString("message"),
+                                rs.getTimestamp("created_at").toLocalDateTime(),
+                                rs.getString("username"),
+                                rs.getString("email"),
+                                rs.getString("company_name"),
+                                rs.getString("work_area_name")));
+                    }
+                }
+                ids.free();
+                return closed;
+            }
+        });
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -3,9 +3,14 @@ package com.example.Mind_Forge.repository;
 import com.example.Mind_Forge.model.ShiftViolationNotification;
 import com.example.Mind_Forge.model.TimeLog;
 import com.example.Mind_Forge.model.User;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,4 +21,30 @@ public interface ShiftViolationNotificationRepository extends CrudRepository<Shi
     List<ShiftViolationNotification> findByTimeLog(TimeLog timeLog);
 
     Long countByUserAndIsReadFalse(User user);
+
+    // Notification stream replay after Last-Event-ID
+    List<ShiftViolationNotification> findByUserIdAndIsReadFalseAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId);
+
+    // Notification stream poll - new rows for every user with a stream open on this instance
+    List<ShiftViolationNotification> findByUserIdInAndIsReadFalseAndIdGreaterThanOrderByIdAsc(
+            Collection<Long> userIds, Long afterId);
+
+    // Set-based read-state updates - one statement however many rows match
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ShiftViolationNotification n SET n.isDelivered = true " +
+           "WHERE n.user.id = :userId AND n.isDelivered = false AND n.id <= :upToId")
+    int markDeliveredUpTo(@Param("userId") Long userId, @Param("upToId") Long upToId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ShiftViolationNotification n SET n.isRead = true " +
+           "WHERE n.user.id = :userId AND n.isRead = false AND n.id IN :ids")
+    int markReadByIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ShiftViolationNotification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllRead(@Param("userId") Long userId);
 }
@@ -4,12 +4,15 @@ import com.example.Mind_Forge.model.Company;
 import com.example.Mind_Forge.model.TimeLog;
 import com.example.Mind_Forge.model.User;
 import com.example.Mind_Forge.model.WorkArea;
+import com.example.Mind_Forge.service.ShiftCheckCandidate;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,11 +40,41 @@ public interface TimeLogRepository extends CrudRepository<TimeLog, Long> {
     // Efficient count for early exit optimization
     long countByIsActiveShiftTrue();
 
+    // Keyset-paged: pass the last timeLogId of the previous page as afterId (0 for the first).
+    // Only shifts whose company falls in one of the given monitoring partitions.
+    @Query("SELECT new com.example.Mind_Forge.service.ShiftCheckCandidate(" +
+           "t.id, u.id, u.email, u.company.id, t.workArea.id, " +
+           "t.lastLocationCheck, t.violationCount, t.firstViolationTime) " +
+           "FROM TimeLog t JOIN t.user u " +
+           "WHERE t.isActiveShift = true AND t.id > :afterId AND " +
+           "(t.lastLocationCheck IS NULL OR t.lastLocationCheck < :thresholdTime) AND " +
+           "MOD(COALESCE(u.company.id, 0), :partitionCount) IN :partitions " +
+           "ORDER BY t.id")
+    List<ShiftCheckCandidate> findShiftsNeedingCheck(@Param("thresholdTime") LocalDateTime thresholdTime,
+                                                     @Param("afterId") Long afterId,
+                                                     @Param("partitionCount") int partitionCount,
+                                                     @Param("partitions") Collection<Integer> partitions,
+                                                     Limit limit);
+
+    // Active shift registry queries
+    @Query("SELECT t FROM TimeLog t " +
+           "LEFT JOIN FETCH t.user u " +
+           "LEFT JOIN FETCH u.company " +
+           "LEFT JOIN FETCH t.workArea " +
+           "WHERE t.isActiveShift = true")
+    List<TimeLog> findAllActiveShiftsWithWorkArea();
+
+    @Query("SELECT t FROM TimeLog t " +
+           "LEFT JOIN FETCH t.user u " +
+           "LEFT JOIN FETCH u.company " +
+           "LEFT JOIN FETCH t.workArea " +
+           "WHERE t.isActiveShift = true AND u.id = :userId")
+    Optional<TimeLog> findActiveShiftWithWorkAreaByUserId(@Param("userId") Long userId);
+
     @Query("SELECT t FROM TimeLog t " +
            "LEFT JOIN FETCH t.user u " +
            "LEFT JOIN FETCH u.company " +
            "LEFT JOIN FETCH t.workArea " +
-           "WHERE t.isActiveShift = true AND " +
-           "(t.lastLocationCheck IS NULL OR t.lastLocationCheck < :thresholdTime)")
-    List<TimeLog> findActiveShiftsNeedingCheck(@Param("thresholdTime") LocalDateTime thresholdTime);
+           "WHERE t.isActiveShift = true AND t.id = :timeLogId")
+    Optional<TimeLog> findActiveShiftWithWorkAreaById(@Param("timeLogId") Long timeLogId);
 }
\ No newline at end of file
@@ -25,4 +25,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     List<User> findByCompanyAndRole(Company company, String role);
+
+    List<User> findByCompanyIdAndRole(Long companyId, String role);
 }
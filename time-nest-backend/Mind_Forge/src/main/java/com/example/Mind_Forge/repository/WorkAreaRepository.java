@@ -21,6 +21,11 @@ public interface WorkAreaRepository extends JpaRepository<WorkArea, Long> {
      */
     List<WorkArea> findByCompanyAndActiveTrue(Company company);
 
+    /*
+     * Find all work areas for a company by id (geometry cache loads, no Company entity needed)
+     */
+    List<WorkArea> findByCompanyId(Long companyId);
+
     /*
      * Find a specific work area by ID and company (for security - ensure user can only access their company's areas)
      */
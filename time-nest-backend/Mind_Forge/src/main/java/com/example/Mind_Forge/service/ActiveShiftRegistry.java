@@ -0,0 +1,379 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.model.TimeLog;
+import com.example.Mind_Forge.model.WorkArea;
+import com.example.Mind_Forge.repository.HeartbeatBatchRepository;
+import com.example.Mind_Forge.repository.HeartbeatBatchRepository.HeartbeatUpdate;
+import com.example.Mind_Forge.repository.TimeLogRepository;
+import com.example.Mind_Forge.service.WorkAreaGeometryCache.CachedWorkArea;
+import com.example.Mind_Forge.service.WorkAreaGeometryCache.CompanySnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * In-memory registry of active shifts keyed by user id.
+ *
+ * Heartbeats are evaluated against this registry instead of the database. Changes are
+ * marked dirty and written back to timelogs by {@link #flush()}, which runs on a fixed
+ * delay from ScheduledTasksConfiguration. Repeated heartbeats for a shift between two
+ * flushes coalesce into one row update carrying the latest position, and the survivors
+ * are written as a single JDBC batch. The registry is rebuilt from timelogs on startup.
+ */
+@Component
+public class ActiveShiftRegistry {
+
+    private final TimeLogRepository timeLogRepository;
+    private final HeartbeatBatchRepository heartbeatBatchRepository;
+    private final WorkAreaGeometryCache geometryCache;
+    private final Map<Long, ActiveShiftState> shiftsByUserId = new ConcurrentHashMap<>();
+    private final int maxBatchSize;
+
+    // Write-behind metrics
+    private final Counter coalescedHeartbeats;
+    private final DistributionSummary flushBatchSize;
+    private final Timer flushLag;
+    private final Timer flushDuration;
+    private final Counter flushFailures;
+    private final Counter evictedClosedShifts;
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveShiftRegistry.class);
+
+    public ActiveShiftRegistry(TimeLogRepository timeLogRepository,
+            HeartbeatBatchRepository heartbeatBatchRepository,
+            WorkAreaGeometryCache geometryCache,
+            MeterRegistry meterRegistry,
+            @Value("${heartbeat.write-behind.max-batch-size:500}") int maxBatchSize) {
+        this.timeLogRepository = timeLogRepository;
+        this.heartbeatBatchRepository = heartbeatBatchRepository;
+        this.geometryCache = geometryCache;
+        this.maxBatchSize = maxBatchSize;
+
+        Gauge.builder("heartbeat.registry.active.shifts", shiftsByUserId, Map::size)
+                .description("Active shifts held in memory")
+                .register(meterRegistry);
+        this.coalescedHeartbeats = Counter.builder("heartbeat.writebehind.coalesced")
+                .description("Heartbeats merged into an update that was already pending")
+                .register(meterRegistry);
+        this.flushBatchSize = DistributionSummary.builder("heartbeat.writebehind.batch.size")
+                .description("Shift rows written per flush")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.flushLag = Timer.builder("heartbeat.writebehind.flush.lag")
+                .description("Time a heartbeat waited in memory before being written")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.flushDuration = Timer.builder("heartbeat.writebehind.flush.duration")
+                .description("Time spent executing the batched UPDATE")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("heartbeat.writebehind.flush.failures")
+                .register(meterRegistry);
+        this.evictedClosedShifts = Counter.builder("heartbeat.registry.evicted")
+                .description("Shifts dropped because the flush found them closed, e.g. by another instance")
+                .register(meterRegistry);
+    }
+
+    // Ahead of listeners that read the registry on startup (ShiftDeadlineScheduler)
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        List<TimeLog> activeShifts = timeLogRepository.findAllActiveShiftsWithWorkArea();
+        shiftsByUserId.clear();
+        for (TimeLog timeLog : activeShifts) {
+            register(timeLog);
+        }
+        log.info("Active shift registry rebuilt with {} shifts", shiftsByUserId.size());
+    }
+
+    public ActiveShiftState register(TimeLog timeLog) {
+        ActiveShiftState state = new ActiveShiftState(timeLog);
+        shiftsByUserId.put(state.getUserId(), state);
+        return state;
+    }
+
+    /**
+     * Register a shift just started at a work area taken from the geometry cache.
+     */
+    public ActiveShiftState register(TimeLog timeLog, CachedWorkArea workArea) {
+        ActiveShiftState state = new ActiveShiftState(timeLog, workArea);
+        shiftsByUserId.put(state.getUserId(), state);
+        return state;
+    }
+
+    public ActiveShiftState get(Long userId) {
+        return shiftsByUserId.get(userId);
+    }
+
+    /**
+     * Register a shift once the transaction that starts it commits.
+     */
+    public void registerAfterCommit(TimeLog timeLog, CachedWorkArea workArea,
+            Consumer<ActiveShiftState> onRegistered) {
+        afterCommit(() -> onRegistered.accept(register(timeLog, workArea)), null);
+    }
+
+    /**
+     * Take a shift out of service now and drop it once the transaction closing it commits.
+     * Heartbeats arriving in between see no active shift instead of re-registering it from a
+     * database row that isn't closed yet; if the transaction rolls back it is put back in service.
+     * Without a transaction the caller has already written the close and the shift goes right away.
+     */
+    public void removeAfterCommit(ActiveShiftState state, Runnable onRemoved) {
+        synchronized (state) {
+            state.setClosed(true);
+        }
+        afterCommit(() -> {
+            remove(state.getUserId(), state.getTimeLogId());
+            if (onRemoved != null) {
+                onRemoved.run();
+            }
+        }, () -> {
+            synchronized (state) {
+                state.setClosed(false);
+            }
+        });
+    }
+
+    /**
+     * Drop the user's shift, if it is still the given one, once the transaction closing it commits.
+     */
+    public void removeAfterCommit(Long userId, Long timeLogId) {
+        ActiveShiftState state = shiftsByUserId.get(userId);
+        if (state != null && state.getTimeLogId().equals(timeLogId)) {
+            removeAfterCommit(state, null);
+        }
+    }
+
+    /**
+     * Look up the user's active shift, falling back to the database on a miss
+     * (e.g. the shift was started on another instance).
+     */
+    public ActiveShiftState getOrLoad(Long userId) {
+        ActiveShiftState state = shiftsByUserId.get(userId);
+        if (state != null) {
+            synchronized (state) {
+                return state.isClosed() ? null : state;
+            }
+        }
+        return timeLogRepository.findActiveShiftWithWorkAreaByUserId(userId)
+                .map(this::register)
+                .orElse(null);
+    }
+
+    public Collection<ActiveShiftState> activeShifts() {
+        return shiftsByUserId.values();
+    }
+
+    public ActiveShiftState remove(Long userId) {
+        return shiftsByUserId.remove(userId);
+    }
+
+    /**
+     * Remove the user's shift only if it is still the given one.
+     */
+    public void remove(Long userId, Long timeLogId) {
+        shiftsByUserId.computeIfPresent(userId,
+                (id, state) -> state.getTimeLogId().equals(timeLogId) ? null : state);
+    }
+
+    public void removeByTimeLogId(Long timeLogId) {
+        shiftsByUserId.values().removeIf(state -> state.getTimeLogId().equals(timeLogId));
+    }
+
+    /**
+     * Pick up violation changes made to a TimeLog outside the heartbeat path, once the
+     * transaction saving them commits. The values are captured now; a rollback leaves the
+     * in-memory state untouched.
+     */
+    public void syncViolationStateAfterCommit(TimeLog timeLog) {
+        if (timeLog.getUser() == null) {
+            return;
+        }
+        Long userId = timeLog.getUser().getId();
+        Long timeLogId = timeLog.getId();
+        int violationCount = timeLog.getViolationCount() != null ? timeLog.getViolationCount() : 0;
+        LocalDateTime firstViolationTime = timeLog.getFirstViolationTime();
+        afterCommit(() -> syncViolationState(userId, timeLogId, violationCount, firstViolationTime), null);
+    }
+
+    /**
+     * Pick up a violation set by a set-based monitoring statement, which has no entity to sync from.
+     */
+    public void syncViolationState(Long userId, Long timeLogId, int violationCount, LocalDateTime firstViolationTime) {
+        ActiveShiftState state = shiftsByUserId.get(userId);
+        if (state != null && state.getTimeLogId().equals(timeLogId)) {
+            synchronized (state) {
+                state.setViolationCount(violationCount);
+                state.setFirstViolationTime(firstViolationTime);
+            }
+        }
+    }
+
+    /**
+     * Bring a TimeLog loaded for monitoring and the in-memory state of the same shift in line.
+     * Whichever saw the later heartbeat wins: the entity picks up heartbeats still waiting
+     * for the flush, the state picks up heartbeats another instance has already written.
+     */
+    public void reconcile(TimeLog timeLog) {
+        if (timeLog.getUser() == null) {
+            return;
+        }
+        ActiveShiftState state = shiftsByUserId.get(timeLog.getUser().getId());
+        if (state == null || !state.getTimeLogId().equals(timeLog.getId())) {
+            return;
+        }
+        synchronized (state) {
+            LocalDateTime inMemory = state.getLastLocationCheck();
+            LocalDateTime persisted = timeLog.getLastLocationCheck();
+            if (persisted != null && (inMemory == null || persisted.isAfter(inMemory))) {
+                state.setCurrentLatitude(timeLog.getCurrentLatitude());
+                state.setCurrentLongitude(timeLog.getCurrentLongitude());
+                state.setLastLocationCheck(persisted);
+                state.syncViolationState(timeLog);
+            } else if (state.isDirty()) {
+                state.applyTo(timeLog);
+            }
+        }
+    }
+
+    /**
+     * Bring the shift's work area geometry in line with the company's current snapshot - the
+     * area may have been edited or deleted since clock-in, on this instance or another. Only a
+     * reference check unless the snapshot changed. Caller must hold the state's monitor.
+     */
+    public void refreshWorkArea(ActiveShiftState state) {
+        if (!state.hasWorkArea() || state.getCompanyId() == null) {
+            return;
+        }
+        CompanySnapshot snapshot = geometryCache.snapshot(state.getCompanyId());
+        if (snapshot == state.getWorkAreaSnapshot()) {
+            return;
+        }
+        snapshot.get(state.getWorkAreaId()).ifPresentOrElse(
+                state::setWorkArea,
+                () -> state.setWorkArea((WorkArea) null));
+        state.setWorkAreaSnapshot(snapshot);
+    }
+
+    public int size() {
+        return shiftsByUserId.size();
+    }
+
+    /**
+     * Flag a shift for the next flush. Caller must hold the state's monitor.
+     */
+    public void markDirty(ActiveShiftState state) {
+        if (!state.markDirty()) {
+            coalescedHeartbeats.increment();
+        }
+    }
+
+    /**
+     * Write dirty heartbeat state back to timelogs as one batched UPDATE.
+     */
+    public synchronized int flush() {
+        long now = System.nanoTime();
+        List<HeartbeatUpdate> pending = new ArrayList<>();
+        List<ActiveShiftState> flushed = new ArrayList<>();
+        for (ActiveShiftState state : shiftsByUserId.values()) {
+            synchronized (state) {
+                if (!state.isDirty()) {
+                    continue;
+                }
+                pending.add(new HeartbeatUpdate(
+                        state.getTimeLogId(),
+                        state.getCurrentLatitude(),
+                        state.getCurrentLongitude(),
+                        state.getLastLocationCheck(),
+                        state.getViolationCount(),
+                        state.getFirstViolationTime()));
+                flushLag.record(now - state.getDirtySinceNanos(), TimeUnit.NANOSECONDS);
+                state.setDirty(false);
+                flushed.add(state);
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            int[] counts = flushDuration.recordCallable(
+                    () -> heartbeatBatchRepository.updateHeartbeats(pending, maxBatchSize));
+            flushBatchSize.record(pending.size());
+            int updated = 0;
+            int evicted = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    updated += counts[i];
+                } else if (counts[i] == 0) {
+                    // No active row - the shift was closed elsewhere (another instance's clock-out
+                    // or sweep), so stop answering heartbeats for it
+                    ActiveShiftState state = flushed.get(i);
+                    remove(state.getUserId(), state.getTimeLogId());
+                    evicted++;
+                }
+            }
+            evictedClosedShifts.increment(evicted);
+            log.debug("Flushed heartbeat state for {} shifts ({} rows updated, {} closed shifts evicted)",
+                    pending.size(), updated, evicted);
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.error("Failed to flush heartbeat state for {} shifts - will retry", pending.size(), e);
+            // Nothing was committed, so put everything back for the next flush
+            for (ActiveShiftState state : flushed) {
+                synchronized (state) {
+                    state.markDirty();
+                }
+            }
+        }
+        return pending.size();
+    }
+
+    // Registry changes must not get ahead of the database state they mirror
+    private static void afterCommit(Runnable committed, Runnable rolledBack) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    committed.run();
+                } else if (rolledBack != null) {
+                    rolledBack.run();
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flush();
+        log.info("Flushed {} pending heartbeat updates on shutdown", flushed);
+    }
+
+}
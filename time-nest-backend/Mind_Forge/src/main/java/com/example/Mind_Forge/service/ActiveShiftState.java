@@ -0,0 +1,151 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.model.TimeLog;
+import com.example.Mind_Forge.model.User;
+import com.example.Mind_Forge.model.WorkArea;
+import com.example.Mind_Forge.service.WorkAreaGeometryCache.CachedWorkArea;
+import com.example.Mind_Forge.service.WorkAreaGeometryCache.CompanySnapshot;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * In-memory view of one active shift, kept by {@link ActiveShiftRegistry}.
+ * Holds everything the heartbeat path needs so it never has to load the TimeLog entity.
+ * Callers must synchronize on the instance while reading or mutating it.
+ */
+@Getter
+@Setter
+public class ActiveShiftState {
+
+    // Identity - fixed for the lifetime of the shift
+    private final Long timeLogId;
+    private final Long userId;
+    private final String userEmail;
+    private final Long companyId;
+    private final LocalDateTime startTime;
+
+    // Work area geometry captured at clock-in (null when the shift has no work area)
+    private Long workAreaId;
+    private String workAreaName;
+    private Double workAreaLatitude;
+    private Double workAreaLongitude;
+    private Double workAreaRadiusMeters;
+    private GeofenceGeometry geofence;
+    // Company snapshot the geometry above was last checked against (null = not yet)
+    private CompanySnapshot workAreaSnapshot;
+
+    // Heartbeat state
+    private Double currentLatitude;
+    private Double currentLongitude;
+    private LocalDateTime lastLocationCheck;
+    // GeofenceGeometry.distanceMeters at the last heartbeat (null until first evaluated)
+    private Double lastDistanceMeters;
+    // Speed between the last two significant position updates (0 when stationary)
+    private double lastSpeedMetersPerSecond;
+
+    // Violation state
+    private int violationCount;
+    private LocalDateTime firstViolationTime;
+    private String autoClockoutReason;
+
+    // True while the state holds changes not yet written back to timelogs
+    private boolean dirty;
+    private long dirtySinceNanos;
+
+    // Set once the shift is being closed - it stays in the registry until the close commits,
+    // but no longer accepts heartbeats
+    private boolean closed;
+
+    public ActiveShiftState(TimeLog timeLog) {
+        this(timeLog, null);
+        setWorkArea(timeLog.getWorkArea());
+    }
+
+    /**
+     * For a shift whose work area the caller already has from the geometry cache - the
+     * TimeLog's work area association is not touched, so it is never loaded.
+     */
+    public ActiveShiftState(TimeLog timeLog, CachedWorkArea workArea) {
+        User user = timeLog.getUser();
+        this.timeLogId = timeLog.getId();
+        this.userId = user.getId();
+        this.userEmail = user.getEmail();
+        this.companyId = user.getCompany() != null ? user.getCompany().getId() : null;
+        this.startTime = timeLog.getStartTime();
+        if (workArea != null) {
+            setWorkArea(workArea);
+        }
+        this.currentLatitude = timeLog.getCurrentLatitude();
+        this.currentLongitude = timeLog.getCurrentLongitude();
+        this.lastLocationCheck = timeLog.getLastLocationCheck();
+        this.violationCount = timeLog.getViolationCount() != null ? timeLog.getViolationCount() : 0;
+        this.firstViolationTime = timeLog.getFirstViolationTime();
+    }
+
+    /**
+     * Flag the state for the next write-behind flush.
+     *
+     * @return false if it was already pending, i.e. this change coalesces with an earlier one
+     */
+    public boolean markDirty() {
+        if (dirty) {
+            return false;
+        }
+        dirty = true;
+        dirtySinceNanos = System.nanoTime();
+        return true;
+    }
+
+    public boolean hasWorkArea() {
+        return workAreaId != null;
+    }
+
+    public void setWorkArea(WorkArea workArea) {
+        if (workArea == null) {
+            this.workAreaId = null;
+            this.workAreaName = null;
+            this.workAreaLatitude = null;
+            this.workAreaLongitude = null;
+            this.workAreaRadiusMeters = null;
+            this.geofence = null;
+            return;
+        }
+        this.workAreaId = workArea.getId();
+        this.workAreaName = workArea.getName();
+        this.workAreaLatitude = workArea.getLatitude();
+        this.workAreaLongitude = workArea.getLongitude();
+        this.workAreaRadiusMeters = workArea.getRadiusMeters();
+        this.geofence = GeofenceGeometry.of(workArea);
+    }
+
+    public void setWorkArea(CachedWorkArea workArea) {
+        this.workAreaId = workArea.id();
+        this.workAreaName = workArea.name();
+        this.workAreaLatitude = workArea.latitude();
+        this.workAreaLongitude = workArea.longitude();
+        this.workAreaRadiusMeters = workArea.radiusMeters();
+        this.geofence = workArea.geofence();
+    }
+
+    /**
+     * Copy the heartbeat and violation fields onto a managed TimeLog so that
+     * code paths that save the entity don't lose state that hasn't been flushed yet.
+     */
+    public void applyTo(TimeLog timeLog) {
+        timeLog.setCurrentLatitude(currentLatitude);
+        timeLog.setCurrentLongitude(currentLongitude);
+        timeLog.setLastLocationCheck(lastLocationCheck);
+        timeLog.setViolationCount(violationCount);
+        timeLog.setFirstViolationTime(firstViolationTime);
+    }
+
+    /**
+     * Take the violation state from a TimeLog that was changed elsewhere (e.g. the monitoring pass).
+     */
+    public void syncViolationState(TimeLog timeLog) {
+        this.violationCount = timeLog.getViolationCount() != null ? timeLog.getViolationCount() : 0;
+        this.firstViolationTime = timeLog.getFirstViolationTime();
+    }
+}
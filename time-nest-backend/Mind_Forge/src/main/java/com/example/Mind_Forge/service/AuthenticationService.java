@@ -21,29 +21,33 @@ import com.example.Mind_Forge.repository.CompanyRepository;
 import com.example.Mind_Forge.repository.PasswordResetTokenRepository;
 import com.example.Mind_Forge.repository.UserRepository;
 
-import java.io.IOException;
+import jakarta.transaction.Transactional;
 
 @Service
 public class AuthenticationService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutbox;
+    private final EmailTemplates emailTemplates;
     private final CompanyRepository companyRepository;
     private final PasswordResetTokenRepository tokenRepository;
 
     public AuthenticationService(UserRepository userRepository, CompanyRepository companyRepository,
             PasswordEncoder passwordEncoder,
-            AuthenticationManager authenticationManager, EmailService emailService,
-            PasswordResetTokenRepository tokenRepository) {
+            AuthenticationManager authenticationManager, EmailOutboxService emailOutbox,
+            EmailTemplates emailTemplates, PasswordResetTokenRepository tokenRepository) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
-        this.emailService = emailService;
+        this.emailOutbox = emailOutbox;
+        this.emailTemplates = emailTemplates;
         this.companyRepository = companyRepository;
         this.tokenRepository = tokenRepository;
     }
 
+    // The verification email is queued in the same transaction as the new user
+    @Transactional
     public User register(RegisterUserDto input) {
         // Normalize email to lowercase and trim whitespace
         String normalizedEmail = input.getEmail().trim().toLowerCase();
@@ -69,15 +73,9 @@ public class AuthenticationService {
         User savedUser = userRepository.save(user);
         System.out.println("User registered successfully with ID: " + savedUser.getId());
 
-        // Try to send verification email (non-blocking - user is already saved)
-        try {
-            sendVerificationEmail(savedUser);
-            System.out.println("Verification email sent successfully to: " + savedUser.getEmail());
-        } catch (Exception e) {
-            System.err.println("WARNING: Failed to send verification email to: " + savedUser.getEmail());
-            System.err.println("Error: " + e.getMessage());
-            // User is still registered, they can request a resend later
-        }
+        // Queue the verification email - it is sent in the background once this commits
+        sendVerificationEmail(savedUser);
+        System.out.println("Verification email queued for: " + savedUser.getEmail());
 
         return savedUser;
     }
@@ -132,6 +130,7 @@ public class AuthenticationService {
         }
     }
 
+    @Transactional
     public void resendVerificationCode(String email) {
         Optional<User> optionalUser = userRepository.findByEmail(email);
         if (optionalUser.isPresent()) {
@@ -150,26 +149,9 @@ public class AuthenticationService {
 
     public void sendVerificationEmail(User user) {
         String subject = "Account Verification";
-        String VerificationCode = user.getVerificationCode();
-        String htmlMsg = "<html>"
-                + "<body style=\"background-color:#f3f4f6; font-family:'Segoe UI', sans-serif; margin:0; padding:0;\">"
-                + "<div style=\"max-width:600px; margin:40px auto; background-color:#ffffff; border-radius:12px; box-shadow:0 4px 12px rgba(0,0,0,0.1); padding:30px; text-align:center;\">"
-                + "<div style=\"font-size:26px; color:#3b82f6; font-weight:600; margin-bottom:10px;\">Timenest</div>"
-                + "<div style=\"font-size:22px; font-weight:500; color:#111827;\">Verify Your Email</div>"
-                + "<div style=\"font-size:16px; color:#4b5563; margin:20px 0;\">Hello! We're excited to have you. Please use the verification code below to complete your registration.</div>"
-                + "<div style=\"font-size:32px; font-weight:bold; letter-spacing:4px; color:#ffffff; background-color:#3b82f6; padding:10px 20px; border-radius:8px; display:inline-block; margin-bottom:20px;\">"
-                + VerificationCode + "</div>"
-                + "<div style=\"font-size:16px; color:#4b5563; margin:20px 0;\">This code is valid for the next 15 minutes.</div>"
-                + "<div style=\"font-size:14px; color:#9ca3af;\">If you did not request this code, feel free to ignore this message.<br /> Infinite Tech Team</div>"
-                + "</div>"
-                + "</body>"
-                + "</html>";
-
-        try {
-            emailService.sendVerificationEmail(user.getEmail(), subject, htmlMsg);
-        } catch (IOException exception) {
-            exception.printStackTrace();
-        }
+        String htmlMsg = emailTemplates.verificationEmail(user.getVerificationCode());
+
+        emailOutbox.enqueue(user.getEmail(), subject, htmlMsg);
     }
 
     private String generateVerificationCode() {
@@ -212,6 +194,8 @@ public class AuthenticationService {
         userRepository.save(user);
     }
 
+    // The reset email is queued in the same transaction as its token
+    @Transactional
     public void sendResetToken(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -224,25 +208,9 @@ public class AuthenticationService {
         tokenRepository.save(resetToken);
 
         String subject = "Reset Your Timenest Password";
-        String htmlMsg = "<html>"
-                + "<body style=\"background-color:#f3f4f6; font-family:'Segoe UI', sans-serif; margin:0; padding:0;\">"
-                + "<div style=\"max-width:600px; margin:40px auto; background-color:#ffffff; border-radius:12px; box-shadow:0 4px 12px rgba(0,0,0,0.1); padding:30px; text-align:center;\">"
-                + "<div style=\"font-size:26px; color:#3b82f6; font-weight:600; margin-bottom:10px;\">Timenest</div>"
-                + "<div style=\"font-size:22px; font-weight:500; color:#111827;\">Password Reset Request</div>"
-                + "<div style=\"font-size:16px; color:#4b5563; margin:20px 0;\">We received a request to reset your password. Click the button below to create a new password.</div>"
-                + "<a href=\"https://timenest.infinitetechteam.com/auth/reset-password?token=" + token + "\" style=\"display:inline-block; background-color:#3b82f6; color:#ffffff; padding:12px 30px; border-radius:8px; text-decoration:none; font-weight:600; margin:20px 0;\">Reset Password</a>"
-                + "<div style=\"font-size:16px; color:#4b5563; margin:20px 0;\">This link is valid for the next 15 minutes.</div>"
-                + "<div style=\"font-size:14px; color:#9ca3af;\">If you did not request a password reset, please ignore this email.<br />Infinite Tech Team</div>"
-                + "</div>"
-                + "</body>"
-                + "</html>";
-
-        try {
-            emailService.sendVerificationEmail(email, subject, htmlMsg);
-        } catch (IOException exception) {
-            exception.printStackTrace();
-            throw new RuntimeException("Failed to send password reset email");
-        }
+        String htmlMsg = emailTemplates.passwordResetEmail(token);
+
+        emailOutbox.enqueue(email, subject, htmlMsg);
     }
 
     public void resetPassword(String token, String newPassword) {
@@ -0,0 +1,7 @@
+package com.example.Mind_Forge.service;
+
+/**
+ * One email to one recipient, as handed to the email provider.
+ */
+public record EmailMessage(String to, String subject, String htmlContent) {
+}
@@ -0,0 +1,225 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.repository.EmailOutboxRepository;
+import com.example.Mind_Forge.repository.EmailOutboxRepository.OutboxEmail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional email outbox.
+ *
+ * {@link #enqueue} writes the email to email_outbox in the caller's transaction - nothing
+ * is sent inline, so requests and monitoring transactions don't wait on the email provider
+ * and an email is only sent if the change that triggered it commits.
+ *
+ * {@link #dispatch()} runs on a short fixed delay, claims up to email.outbox.batch-size due
+ * messages while the emailExecutor queue has room, and hands them to a worker as one batch -
+ * a single provider request however many emails it holds. If the provider rejects the batch
+ * as invalid, its messages are sent one by one so a bad address only fails its own message.
+ * A failed send is retried with exponential backoff; after email.outbox.max-attempts the message is marked DEAD and
+ * left in the table for inspection. Delivery is at least once - a message whose worker died
+ * mid-send is claimed again when its lock expires. Nothing is claimed while the provider's
+ * circuit breaker is open, so an outage doesn't use up attempts.
+ */
+@Service
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final ThreadPoolTaskExecutor emailExecutor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lockDuration;
+    private final Counter queuedCounter;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+    private final Timer sendTimer;
+    private final Timer batchTimer;
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    public EmailOutboxService(EmailOutboxRepository outboxRepository, EmailService emailService,
+            @Qualifier("emailExecutor") ThreadPoolTaskExecutor emailExecutor, MeterRegistry meterRegistry,
+            @Value("${email.outbox.batch-size:100}") int batchSize,
+            @Value("${email.outbox.max-attempts:6}") int maxAttempts,
+            @Value("${email.outbox.backoff-initial-ms:30000}") long initialBackoffMillis,
+            @Value("${email.outbox.backoff-max-ms:3600000}") long maxBackoffMillis,
+            @Value("${email.outbox.lock-ms:300000}") long lockMillis) {
+        this.outboxRepository = outboxRepository;
+        this.emailService = emailService;
+        this.emailExecutor = emailExecutor;
+        this.batchSize = Math.max(1, Math.min(batchSize, EmailService.MAX_BATCH_SIZE));
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+        this.lockDuration = Duration.ofMillis(lockMillis);
+
+        this.queuedCounter = Counter.builder("email.outbox.queued")
+                .description("Emails written to the outbox").register(meterRegistry);
+        this.sentCounter = Counter.builder("email.outbox.sent")
+                .description("Outbox emails accepted by the provider").register(meterRegistry);
+        this.retriedCounter = Counter.builder("email.outbox.retried")
+                .description("Failed outbox sends scheduled for another attempt").register(meterRegistry);
+        this.deadCounter = Counter.builder("email.outbox.dead")
+                .description("Outbox emails given up on after the maximum attempts").register(meterRegistry);
+        this.sendTimer = Timer.builder("email.outbox.send")
+                .description("Time spent in the provider call per outbox email").register(meterRegistry);
+        this.batchTimer = Timer.builder("email.outbox.batch")
+                .description("Time spent in the provider call per batch of outbox emails").register(meterRegistry);
+    }
+
+    /**
+     * Queue an email. Call inside the transaction that makes the change the email is about.
+     */
+    public void enqueue(String to, String subject, String htmlContent) {
+        outboxRepository.enqueue(to, subject, htmlContent, LocalDateTime.now());
+        queuedCounter.increment();
+    }
+
+    /**
+     * Queue several emails with one batched insert, e.g. an alert fanned out to every executive.
+     */
+    public void enqueueAll(List<EmailMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        outboxRepository.enqueueAll(messages.stream()
+                .map(message -> new OutboxEmail(null, message.to(), message.subject(), message.htmlContent(), 0))
+                .toList(), LocalDateTime.now());
+        queuedCounter.increment(messages.size());
+    }
+
+    /**
+     * Claim due messages and hand them to the workers.
+     *
+     * @return messages handed to the workers
+     */
+    public int dispatch() {
+        if (emailExecutor.getThreadPoolExecutor().getQueue().remainingCapacity() <= 0) {
+            return 0;
+        }
+        // Leave messages due while the provider circuit is open alone rather than spend their attempts
+        if (!emailService.isProviderAvailable()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEmail> claimed = outboxRepository.claimDue(now, now.plus(lockDuration), batchSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        try {
+            emailExecutor.execute(() -> deliver(claimed));
+        } catch (TaskRejectedException e) {
+            // Shutting down - never sent, so hand them back without spending an attempt
+            for (OutboxEmail email : claimed) {
+                outboxRepository.release(email.id(), now, "Not dispatched: " + e.getMessage());
+            }
+            return 0;
+        }
+        return claimed.size();
+    }
+
+    private void deliver(List<OutboxEmail> emails) {
+        if (emails.size() == 1) {
+            deliver(emails.get(0));
+            return;
+        }
+        try {
+            List<EmailMessage> messages = emails.stream()
+                    .map(email -> new EmailMessage(email.recipient(), email.subject(), email.htmlContent()))
+                    .toList();
+            batchTimer.recordCallable(() -> {
+                emailService.sendBatch(messages);
+                return null;
+            });
+        } catch (EmailRejectedException e) {
+            // Some message in the batch is invalid - find out which
+            log.warn("Batch of {} outbox emails rejected, sending them one by one: {}", emails.size(), e.getMessage());
+            emails.forEach(this::deliver);
+            return;
+        } catch (Exception e) {
+            // Provider unavailable - one retry schedule for the whole batch rather than a call per message
+            emails.forEach(email -> failed(email, e));
+            return;
+        }
+        for (OutboxEmail email : emails) {
+            sent(email);
+        }
+    }
+
+    private void deliver(OutboxEmail email) {
+        try {
+            sendTimer.recordCallable(() -> {
+                emailService.sendVerificationEmail(email.recipient(), email.subject(), email.htmlContent());
+                return null;
+            });
+        } catch (Exception e) {
+            failed(email, e);
+            return;
+        }
+        sent(email);
+    }
+
+    private void sent(OutboxEmail email) {
+        sentCounter.increment();
+        try {
+            outboxRepository.delete(email.id());
+        } catch (RuntimeException e) {
+            // Sent again once the claim lock expires - at least once
+            log.error("Could not remove sent email {} from the outbox", email.id(), e);
+        }
+    }
+
+    private void failed(OutboxEmail email, Exception error) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        try {
+            // Circuit open or bulkhead full - never sent, so it doesn't count as an attempt
+            if (error instanceof EmailProviderUnavailableException) {
+                outboxRepository.release(email.id(), LocalDateTime.now().plus(initialBackoff), message);
+                retriedCounter.increment();
+                log.debug("Email {} to {} not sent, retrying in {} s: {}",
+                        email.id(), email.recipient(), initialBackoff.toSeconds(), message);
+                return;
+            }
+            // A message the provider refuses as invalid won't get better with retries
+            if (email.attempts() >= maxAttempts || error instanceof EmailRejectedException) {
+                outboxRepository.markDead(email.id(), message);
+                deadCounter.increment();
+                log.error("Giving up on email {} to {} after {} attempts: {}",
+                        email.id(), email.recipient(), email.attempts(), message);
+                return;
+            }
+            Duration backoff = backoff(email.attempts());
+            outboxRepository.scheduleRetry(email.id(), LocalDateTime.now().plus(backoff), message);
+            retriedCounter.increment();
+            log.warn("Email {} to {} failed (attempt {} of {}), retrying in {} s: {}",
+                    email.id(), email.recipient(), email.attempts(), maxAttempts, backoff.toSeconds(), message);
+        } catch (RuntimeException e) {
+            // The claim lock expires and the message is retried anyway
+            log.error("Could not record failure of email {}", email.id(), e);
+        }
+    }
+
+    // initial, 2x, 4x, ... capped at the maximum
+    private Duration backoff(int attempts) {
+        int doublings = Math.min(Math.max(0, attempts - 1), 20);
+        Duration backoff = initialBackoff.multipliedBy(1L << doublings);
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.Mind_Forge.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker and bulkhead around calls to the email provider.
+ *
+ * The bulkhead caps the sends in flight at email.client.bulkhead.max-concurrent; a caller waits
+ * up to max-wait-ms for a slot and is then turned away, so a slow provider can't tie up every
+ * thread that sends email.
+ *
+ * The breaker records the outcome of the last window-size calls. Once at least minimum-calls
+ * are recorded and failure-rate-threshold percent of them failed - timeouts, connection errors,
+ * 401/403/404, 429s and 5xx, but not requests the provider rejected as invalid - it opens and
+ * calls fail immediately for open-ms. It then lets half-open-calls trial calls through: if they
+ * all succeed it closes again, if any fails it reopens.
+ */
+@Component
+public class EmailProviderGuard {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @FunctionalInterface
+    public interface ProviderCall<T> {
+        T call() throws IOException;
+    }
+
+    private final Clock clock;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+
+    // Outcomes of the last calls while closed, true = failed
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private Instant openUntil = Instant.MIN;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Timer rejectedByProviderTimer;
+    private final Counter circuitOpenCounter;
+    private final Counter bulkheadFullCounter;
+
+    private static final Logger log = LoggerFactory.getLogger(EmailProviderGuard.class);
+
+    @Autowired
+    public EmailProviderGuard(MeterRegistry meterRegistry,
+            @Value("${email.client.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${email.client.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${email.client.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${email.client.circuit-breaker.open-ms:30000}") long openMillis,
+            @Value("${email.client.circuit-breaker.half-open-calls:3}") int halfOpenCalls,
+            @Value("${email.client.bulkhead.max-concurrent:4}") int maxConcurrent,
+            @Value("${email.client.bulkhead.max-wait-ms:2000}") long maxWaitMillis) {
+        this(meterRegistry, Clock.systemUTC(), failureRateThreshold, windowSize, minimumCalls,
+                Duration.ofMillis(openMillis), halfOpenCalls, maxConcurrent, maxWaitMillis);
+    }
+
+    public EmailProviderGuard(MeterRegistry meterRegistry, Clock clock, int failureRateThreshold, int windowSize,
+            int minimumCalls, Duration openDuration, int halfOpenCalls, int maxConcurrent, long maxWaitMillis) {
+        this.clock = clock;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.openDuration = openDuration;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.bulkhead = new Semaphore(this.maxConcurrent);
+        this.maxWaitMillis = maxWaitMillis;
+
+        for (State gaugeState : State.values()) {
+            Gauge.builder("email.client.circuit.state", this, guard -> guard.getState() == gaugeState ? 1 : 0)
+                    .tag("state", gaugeState.name().toLowerCase())
+                    .description("1 for the email provider circuit breaker's current state")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("email.client.in-flight", bulkhead, b -> this.maxConcurrent - b.availablePermits())
+                .description("Email provider calls currently in flight")
+                .register(meterRegistry);
+        this.successTimer = callTimer(meterRegistry, "success");
+        this.failureTimer = callTimer(meterRegistry, "failure");
+        this.rejectedByProviderTimer = callTimer(meterRegistry, "rejected");
+        this.circuitOpenCounter = Counter.builder("email.client.not-permitted").tag("reason", "circuit-open")
+                .description("Email provider calls turned away without being attempted").register(meterRegistry);
+        this.bulkheadFullCounter = Counter.builder("email.client.not-permitted").tag("reason", "bulkhead-full")
+                .description("Email provider calls turned away without being attempted").register(meterRegistry);
+    }
+
+    private static Timer callTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("email.client.calls")
+                .tag("outcome", outcome)
+                .description("Email provider call latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(ProviderCall<T> call) throws IOException {
+        acquireBulkhead();
+        try {
+            if (!tryAcquirePermission()) {
+                circuitOpenCounter.increment();
+                throw new EmailProviderUnavailableException("Email provider circuit breaker is open");
+            }
+
+            long startNanos = System.nanoTime();
+            try {
+                T result = call.call();
+                successTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                onSuccess();
+                return result;
+            } catch (EmailRejectedException e) {
+                // The provider answered - the request was bad, not the provider
+                rejectedByProviderTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                onSuccess();
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                failureTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                onFailure();
+                throw e;
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Whether a call made now would be let through by the breaker, without taking a trial slot.
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> !clock.instant().isBefore(openUntil);
+            case HALF_OPEN -> halfOpenPermits > 0;
+        };
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void acquireBulkhead() throws IOException {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmailProviderUnavailableException("Interrupted waiting for an email provider slot");
+        }
+        if (!acquired) {
+            bulkheadFullCounter.increment();
+            throw new EmailProviderUnavailableException(
+                    "Email provider bulkhead full (" + maxConcurrent + " sends in flight)");
+        }
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openUntil)) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits <= 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                resetWindow();
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    private synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCalls >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCalls) {
+                open();
+            }
+        }
+    }
+
+    private void record(boolean failed) {
+        if (windowCalls == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        openUntil = clock.instant().plus(openDuration);
+        resetWindow();
+        transitionTo(State.OPEN);
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+    }
+
+    private void transitionTo(State next) {
+        if (state != next) {
+            if (next == State.OPEN) {
+                log.warn("Email provider circuit breaker {} -> OPEN, failing sends for {} s",
+                        state, openDuration.toSeconds());
+            } else {
+                log.info("Email provider circuit breaker {} -> {}", state, next);
+            }
+            state = next;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.Mind_Forge.service;
+
+import java.io.IOException;
+
+/**
+ * The email provider call was not attempted - the circuit breaker is open or too many
+ * sends are already in flight. Worth retrying later.
+ */
+public class EmailProviderUnavailableException extends IOException {
+
+    public EmailProviderUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.Mind_Forge.service;
+
+import java.io.IOException;
+
+/**
+ * The email provider refused the request itself as invalid (400 or 422) -
+ * retrying the same payload won't help.
+ */
+public class EmailRejectedException extends IOException {
+
+    private final int statusCode;
+
+    public EmailRejectedException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -1,54 +1,141 @@
 package com.example.Mind_Forge.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.List;
 
 @Service
 public class EmailService {
 
-    @Value("${resend.api.key}")
-    private String resendApiKey;
+    // Resend's limit for /emails/batch
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private static final MediaType JSON = MediaType.get("application/json");
+    // Thread-safe; generators it creates reuse pooled internal buffers
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    // Room for the envelope around the HTML body
+    private static final int ENVELOPE_SIZE = 256;
+
+    private final String resendApiKey;
+    private final String fromEmail;
+    private final String emailUrl;
+    private final String batchUrl;
+    private final OkHttpClient httpClient;
+    private final EmailProviderGuard providerGuard;
 
-    @Value("${resend.from.email}")
-    private String fromEmail;
+    private static final Logger log = LoggerFactory.getLogger(EmailService.class);
+
+    public EmailService(@Value("${resend.api.key}") String resendApiKey,
+            @Value("${resend.from.email}") String fromEmail,
+            @Value("${resend.api.base-url:https://api.resend.com}") String baseUrl,
+            @Qualifier("emailHttpClient") OkHttpClient httpClient,
+            EmailProviderGuard providerGuard) {
+        this.resendApiKey = resendApiKey;
+        this.fromEmail = fromEmail;
+        this.httpClient = httpClient;
+        this.providerGuard = providerGuard;
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.emailUrl = base + "/emails";
+        this.batchUrl = base + "/emails/batch";
+    }
 
-    private final OkHttpClient httpClient = new OkHttpClient();
+    /**
+     * Whether the circuit breaker would let a send through right now.
+     */
+    public boolean isProviderAvailable() {
+        return providerGuard.isCallPermitted();
+    }
 
     public void sendVerificationEmail(String to, String subject, String htmlContent) throws IOException {
-        String jsonPayload = String.format(
-            "{\"from\":\"%s\",\"to\":[\"%s\"],\"subject\":\"%s\",\"html\":\"%s\"}",
-            fromEmail,
-            to,
-            subject,
-            htmlContent.replace("\"", "\\\"").replace("\n", "\\n")
-        );
-
-        RequestBody body = RequestBody.create(
-            jsonPayload,
-            MediaType.parse("application/json")
-        );
+        ByteArrayOutputStream json = new ByteArrayOutputStream(htmlContent.length() + ENVELOPE_SIZE);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(json)) {
+            writeEmail(generator, to, subject, htmlContent);
+        }
+        post(emailUrl, json.toByteArray());
+        log.debug("Email sent via Resend to {}", to);
+    }
+
+    /**
+     * Send several emails in one request through Resend's batch endpoint (at most
+     * MAX_BATCH_SIZE). Resend accepts or rejects the batch as a whole.
+     */
+    public void sendBatch(List<EmailMessage> messages) throws IOException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        if (messages.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Resend accepts at most " + MAX_BATCH_SIZE + " emails per batch");
+        }
+        int size = 2;
+        for (EmailMessage message : messages) {
+            size += message.htmlContent().length() + ENVELOPE_SIZE;
+        }
+        ByteArrayOutputStream json = new ByteArrayOutputStream(size);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(json)) {
+            generator.writeStartArray();
+            for (EmailMessage message : messages) {
+                writeEmail(generator, message.to(), message.subject(), message.htmlContent());
+            }
+            generator.writeEndArray();
+        }
+
+        post(batchUrl, json.toByteArray());
+        log.debug("Batch of {} emails sent via Resend", messages.size());
+    }
+
+    // Streams the fields straight into the payload, escaping whatever the values contain
+    private void writeEmail(JsonGenerator generator, String to, String subject, String htmlContent)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("from", fromEmail);
+        generator.writeArrayFieldStart("to");
+        generator.writeString(to);
+        generator.writeEndArray();
+        generator.writeStringField("subject", subject);
+        generator.writeStringField("html", htmlContent);
+        generator.writeEndObject();
+    }
+
+    // Through the circuit breaker and bulkhead - fails fast while the provider is down
+    private void post(String url, byte[] jsonPayload) throws IOException {
+        RequestBody body = RequestBody.create(jsonPayload, JSON);
 
         Request request = new Request.Builder()
-            .url("https://api.resend.com/emails")
+            .url(url)
             .addHeader("Authorization", "Bearer " + resendApiKey)
             .addHeader("Content-Type", "application/json")
             .post(body)
             .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("Failed to send email via Resend: " + response.code() + " - " + response.body().string());
+        providerGuard.execute(() -> {
+            try (Response response = httpClient.newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    String message = "Failed to send email via Resend: " + response.code() + " - " + response.body().string();
+                    // Only a payload the provider found invalid is final. 401/403/404 mean a bad key
+                    // or endpoint on our side - a provider failure until someone fixes the config
+                    if (response.code() == 400 || response.code() == 422) {
+                        throw new EmailRejectedException(response.code(), message);
+                    }
+                    throw new IOException(message);
+                }
+                return null;
             }
-            System.out.println("Email sent successfully via Resend to: " + to);
-        }
+        });
     }
 
 }
\ No newline at end of file
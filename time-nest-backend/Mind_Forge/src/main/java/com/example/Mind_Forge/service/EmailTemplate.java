@@ -0,0 +1,135 @@
+package com.example.Mind_Forge.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An HTML email template parsed once into literal segments and parameter slots.
+ *
+ * {{name}} inserts a parameter HTML-escaped, {{{name}}} inserts it as is (for markup the
+ * caller rendered itself). Parameters are bound by position, in the order they were declared
+ * at compile time; compiling fails if the template and the declared names don't match, so a
+ * broken template stops the application at startup instead of producing a broken email.
+ */
+public final class EmailTemplate {
+
+    // Buffers bigger than this aren't kept for the next render
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final String name;
+    private final String[] literals;
+    private final int[] slots;
+    private final boolean[] escaped;
+    private final int parameterCount;
+    private final int literalLength;
+
+    private EmailTemplate(String name, String[] literals, int[] slots, boolean[] escaped, int parameterCount) {
+        this.name = name;
+        this.literals = literals;
+        this.slots = slots;
+        this.escaped = escaped;
+        this.parameterCount = parameterCount;
+        this.literalLength = Arrays.stream(literals).mapToInt(String::length).sum();
+    }
+
+    public static EmailTemplate compile(String name, String source, String... parameterNames) {
+        List<String> declared = Arrays.asList(parameterNames);
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+        boolean[] used = new boolean[parameterNames.length];
+
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                break;
+            }
+            boolean raw = source.startsWith("{{{", open);
+            String closing = raw ? "}}}" : "}}";
+            int close = source.indexOf(closing, open);
+            if (close < 0) {
+                throw new IllegalStateException("Unclosed placeholder in email template " + name + " at " + open);
+            }
+            String parameter = source.substring(open + (raw ? 3 : 2), close).trim();
+            int slot = declared.indexOf(parameter);
+            if (slot < 0) {
+                throw new IllegalStateException("Email template " + name + " uses undeclared parameter " + parameter);
+            }
+            used[slot] = true;
+            literals.add(source.substring(position, open));
+            slots.add(slot);
+            escaped.add(!raw);
+            position = close + closing.length();
+        }
+        literals.add(source.substring(position));
+
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i]) {
+                throw new IllegalStateException("Email template " + name + " never uses parameter " + parameterNames[i]);
+            }
+        }
+
+        int[] slotArray = slots.stream().mapToInt(Integer::intValue).toArray();
+        boolean[] escapedArray = new boolean[escaped.size()];
+        for (int i = 0; i < escapedArray.length; i++) {
+            escapedArray[i] = escaped.get(i);
+        }
+        return new EmailTemplate(name, literals.toArray(new String[0]), slotArray, escapedArray,
+                parameterNames.length);
+    }
+
+    /**
+     * Render with the values bound to the declared parameters, in order.
+     */
+    public String render(Object... values) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        renderTo(buffer, values);
+        String rendered = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return rendered;
+    }
+
+    public void renderTo(StringBuilder out, Object... values) {
+        if (values.length != parameterCount) {
+            throw new IllegalArgumentException("Email template " + name + " takes " + parameterCount
+                    + " parameters, got " + values.length);
+        }
+        out.ensureCapacity(out.length() + literalLength + 32 * slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            Object value = values[slots[i]];
+            if (escaped[i]) {
+                appendEscaped(out, value != null ? value.toString() : "");
+            } else if (value instanceof CharSequence raw) {
+                out.append(raw);
+            } else {
+                out.append(value != null ? value : "");
+            }
+        }
+        out.append(literals[slots.length]);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.repository.ExecutiveAlertDigestRepository.DigestEntry;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * The application's email bodies. Templates are read from templates/email on the classpath
+ * and compiled once at startup; rendering only binds the parameters.
+ */
+@Component
+public class EmailTemplates {
+
+    private static final DateTimeFormatter ALERT_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final EmailTemplate verification;
+    private final EmailTemplate passwordReset;
+    private final EmailTemplate executiveAlert;
+    private final EmailTemplate executiveDigest;
+    private final EmailTemplate executiveDigestRow;
+
+    public EmailTemplates() {
+        this.verification = load("verification", "code");
+        this.passwordReset = load("password-reset", "token");
+        this.executiveAlert = load("executive-alert", "employeeName", "employeeEmail", "companyName",
+                "workAreaName", "clockoutTime", "reason", "hours", "distance");
+        this.executiveDigest = load("executive-digest", "count", "companyName", "rows");
+        this.executiveDigestRow = load("executive-digest-row", "employeeName", "employeeEmail", "workAreaName",
+                "clockoutTime", "reason", "hours");
+    }
+
+    public String verificationEmail(String code) {
+        return verification.render(code);
+    }
+
+    public String passwordResetEmail(String token) {
+        return passwordReset.render(token);
+    }
+
+    public String executiveAlertEmail(String employeeName, String employeeEmail, String companyName,
+            String workAreaName, LocalDateTime clockoutTime, String reason, double hours, double distance) {
+        return executiveAlert.render(employeeName, employeeEmail, companyName, workAreaName,
+                clockoutTime.format(ALERT_TIME_FORMAT), reason, String.format("%.2f", hours),
+                String.format("%.0f", distance));
+    }
+
+    public String executiveDigestEmail(String companyName, List<DigestEntry> entries) {
+        StringBuilder rows = new StringBuilder(entries.size() * 256);
+        for (DigestEntry entry : entries) {
+            executiveDigestRow.renderTo(rows, entry.employeeName(), entry.employeeEmail(), entry.workAreaName(),
+                    entry.clockoutTime().format(ALERT_TIME_FORMAT), entry.reason(),
+                    String.format("%.2f", entry.hours()));
+        }
+        return executiveDigest.render(entries.size(), companyName, rows);
+    }
+
+    private static EmailTemplate load(String name, String... parameterNames) {
+        String path = "templates/email/" + name + ".html";
+        try {
+            String source = new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+            return EmailTemplate.compile(name, source, parameterNames);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read email template " + path, e);
+        }
+    }
+}
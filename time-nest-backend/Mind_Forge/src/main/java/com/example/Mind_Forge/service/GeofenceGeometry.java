@@ -0,0 +1,391 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.model.WorkArea;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable geofence of a work area - either a circle (centre + radius) or a polygon.
+ *
+ * Both shapes answer the same question: how far is a point from the work area, and how far
+ * may it be. For a circle that is the distance to the centre against the radius, as before.
+ * For a polygon it is the signed distance to the boundary (negative inside) against 0, so
+ * {@code allowedDistanceMeters() - distanceMeters(..)} is always the margin to the boundary.
+ *
+ * Polygon vertices are projected once onto a local flat plane (metres east/north of the
+ * first vertex), which is accurate to well under a metre at work-site scale. Evaluating a
+ * point is a single allocation-free pass over the edges, and points outside the bounding box
+ * skip it: {@link #contains} rejects them, and {@link #distanceMeters} returns the distance to
+ * the box - a lower bound, exact along the box's sides - unless that is within the boundary band.
+ *
+ * Circles use the same kind of flat projection around the centre, with cos/sin of the centre
+ * latitude precomputed and the longitude scale corrected to first order for the point's
+ * latitude. Within FAST_PATH_MAX_METERS that is within 0.01% of Haversine, so only points in a
+ * thin band around the radius (or far away) pay for the exact Haversine distance.
+ */
+public final class GeofenceGeometry {
+
+    public static final double EARTH_RADIUS_METERS = 6371000;
+    private static final double METERS_PER_DEGREE = EARTH_RADIUS_METERS * Math.PI / 180;
+
+    // Flat-projection fast path: trusted up to this distance, and decisions closer to the
+    // boundary than the band are left to Haversine
+    static final double FAST_PATH_MAX_METERS = 20_000;
+    static final double BOUNDARY_BAND_FRACTION = 0.001;
+    static final double BOUNDARY_BAND_MIN_METERS = 0.5;
+
+    private final double centerLatitude;
+    private final double centerLongitude;
+    private final double radiusMeters;
+    private final double cosCenterLatitude;
+    private final double sinCenterLatitude;
+
+    // Bounding box in degrees - the circle's box for circles
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    // Polygon only: vertices in metres relative to the projection origin
+    private final double[] xs;
+    private final double[] ys;
+    private final double originLatitude;
+    private final double originLongitude;
+    private final double metersPerDegreeLongitude;
+
+    private GeofenceGeometry(double centerLatitude, double centerLongitude, double radiusMeters,
+            double minLatitude, double maxLatitude, double minLongitude, double maxLongitude,
+            double[] xs, double[] ys, double originLatitude, double originLongitude, double metersPerDegreeLongitude) {
+        this.centerLatitude = centerLatitude;
+        this.centerLongitude = centerLongitude;
+        this.radiusMeters = radiusMeters;
+        this.cosCenterLatitude = Math.cos(Math.toRadians(centerLatitude));
+        this.sinCenterLatitude = Math.sin(Math.toRadians(centerLatitude));
+        this.minLatitude = minLatitude;
+        this.maxLatitude = maxLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLongitude = maxLongitude;
+        this.xs = xs;
+        this.ys = ys;
+        this.originLatitude = originLatitude;
+        this.originLongitude = originLongitude;
+        this.metersPerDegreeLongitude = metersPerDegreeLongitude;
+    }
+
+    public static GeofenceGeometry of(WorkArea workArea) {
+        if (workArea.getPolygon() != null && !workArea.getPolygon().isBlank()) {
+            return polygon(parseVertices(workArea.getPolygon()));
+        }
+        return circle(workArea.getLatitude(), workArea.getLongitude(), workArea.getRadiusMeters());
+    }
+
+    public static GeofenceGeometry circle(double latitude, double longitude, double radiusMeters) {
+        double latPad = radiusMeters / METERS_PER_DEGREE;
+        double lonPad = radiusMeters / metersPerDegreeLongitude(latitude);
+        return new GeofenceGeometry(latitude, longitude, radiusMeters,
+                latitude - latPad, latitude + latPad, longitude - lonPad, longitude + lonPad,
+                null, null, 0, 0, 0);
+    }
+
+    /**
+     * @param vertices {latitude, longitude} pairs, at least three, not closed (first != last)
+     */
+    public static GeofenceGeometry polygon(List<double[]> vertices) {
+        if (vertices.size() < 3) {
+            throw new IllegalArgumentException("A polygon work area needs at least 3 points");
+        }
+
+        double originLatitude = vertices.get(0)[0];
+        double originLongitude = vertices.get(0)[1];
+        double metersPerDegreeLongitude = metersPerDegreeLongitude(originLatitude);
+
+        int n = vertices.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        double sumLat = 0, sumLon = 0;
+        for (int i = 0; i < n; i++) {
+            double lat = vertices.get(i)[0];
+            double lon = vertices.get(i)[1];
+            if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+                throw new IllegalArgumentException("Polygon point out of range: " + lat + "," + lon);
+            }
+            xs[i] = (lon - originLongitude) * metersPerDegreeLongitude;
+            ys[i] = (lat - originLatitude) * METERS_PER_DEGREE;
+            minLat = Math.min(minLat, lat);
+            maxLat = Math.max(maxLat, lat);
+            minLon = Math.min(minLon, lon);
+            maxLon = Math.max(maxLon, lon);
+            sumLat += lat;
+            sumLon += lon;
+        }
+
+        // Centre and radius of a circle covering the polygon, for listings and the spatial index
+        double centerLat = sumLat / n;
+        double centerLon = sumLon / n;
+        double radius = 0;
+        for (double[] vertex : vertices) {
+            radius = Math.max(radius, haversineMeters(centerLat, centerLon, vertex[0], vertex[1]));
+        }
+
+        return new GeofenceGeometry(centerLat, centerLon, radius, minLat, maxLat, minLon, maxLon,
+                xs, ys, originLatitude, originLongitude, metersPerDegreeLongitude);
+    }
+
+    /**
+     * Parse the stored "lat,lng;lat,lng;..." form.
+     */
+    public static List<double[]> parseVertices(String encoded) {
+        List<double[]> vertices = new ArrayList<>();
+        for (String point : encoded.split(";")) {
+            if (point.isBlank()) {
+                continue;
+            }
+            int comma = point.indexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("Invalid polygon point: " + point);
+            }
+            vertices.add(new double[] {
+                    Double.parseDouble(point.substring(0, comma).trim()),
+                    Double.parseDouble(point.substring(comma + 1).trim()) });
+        }
+        return vertices;
+    }
+
+    public static String formatVertices(List<double[]> vertices) {
+        StringBuilder encoded = new StringBuilder();
+        for (double[] vertex : vertices) {
+            if (encoded.length() > 0) {
+                encoded.append(';');
+            }
+            encoded.append(vertex[0]).append(',').append(vertex[1]);
+        }
+        return encoded.toString();
+    }
+
+    public boolean isPolygon() {
+        return xs != null;
+    }
+
+    /**
+     * Circle: distance to the centre. Polygon: signed distance to the boundary, negative inside,
+     * or the distance to the bounding box when the point is clearly outside it.
+     */
+    public double distanceMeters(double latitude, double longitude) {
+        if (xs == null) {
+            return circleDistanceMeters(centerLatitude, centerLongitude, cosCenterLatitude, sinCenterLatitude,
+                    radiusMeters, latitude, longitude);
+        }
+
+        double px = (longitude - originLongitude) * metersPerDegreeLongitude;
+        double py = (latitude - originLatitude) * METERS_PER_DEGREE;
+        boolean inBox = insideBoundingBox(latitude, longitude);
+        if (!inBox) {
+            // The box is never further away than the polygon, so once it is clear of the band
+            // the point is outside and no edge needs looking at
+            double boxDistance = boundingBoxDistanceMeters(px, py);
+            if (boxDistance > boundaryBand(radiusMeters)) {
+                return boxDistance;
+            }
+        }
+
+        // One pass: nearest edge, plus the crossing count when the point could be inside
+        boolean inside = false;
+        double minDistanceSquared = Double.MAX_VALUE;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            double xi = xs[i], yi = ys[i], xj = xs[j], yj = ys[j];
+            if (inBox && (yi > py) != (yj > py) && px < (xj - xi) * (py - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+            minDistanceSquared = Math.min(minDistanceSquared, segmentDistanceSquared(px, py, xi, yi, xj, yj));
+        }
+        double distance = Math.sqrt(minDistanceSquared);
+        return inside ? -distance : distance;
+    }
+
+    /**
+     * How far {@link #distanceMeters} may be for a point to count as inside
+     */
+    public double allowedDistanceMeters() {
+        return xs == null ? radiusMeters : 0;
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        if (xs == null) {
+            return circleContains(centerLatitude, centerLongitude, cosCenterLatitude, sinCenterLatitude,
+                    radiusMeters, latitude, longitude);
+        }
+        if (!insideBoundingBox(latitude, longitude)) {
+            return false;
+        }
+
+        double px = (longitude - originLongitude) * metersPerDegreeLongitude;
+        double py = (latitude - originLatitude) * METERS_PER_DEGREE;
+        boolean inside = false;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            if ((ys[i] > py) != (ys[j] > py) && px < (xs[j] - xs[i]) * (py - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Human readable "how far out" for a distance returned by {@link #distanceMeters}
+     */
+    public String describeDistance(double distance) {
+        return xs == null
+                ? String.format("%.0f meters away, must be within %.0f meters", distance, radiusMeters)
+                : String.format("%.0f meters outside the work area boundary", Math.max(distance, 0));
+    }
+
+    public double getCenterLatitude() {
+        return centerLatitude;
+    }
+
+    public double getCenterLongitude() {
+        return centerLongitude;
+    }
+
+    public double getRadiusMeters() {
+        return radiusMeters;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    /**
+     * Great-circle distance between two coordinates using the Haversine formula, in meters
+     */
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return EARTH_RADIUS_METERS * c;
+    }
+
+    /**
+     * Distance from a circle's centre, exact (Haversine) when it is close to the radius or
+     * beyond the fast path range, flat-projection otherwise.
+     */
+    static double circleDistanceMeters(double centerLatitude, double centerLongitude, double cosLatitude,
+            double sinLatitude, double radiusMeters, double latitude, double longitude) {
+        double distance = Math.sqrt(planarDistanceSquared(
+                centerLatitude, centerLongitude, cosLatitude, sinLatitude, latitude, longitude));
+        if (distance > FAST_PATH_MAX_METERS || Math.abs(distance - radiusMeters) <= boundaryBand(radiusMeters)) {
+            return haversineMeters(centerLatitude, centerLongitude, latitude, longitude);
+        }
+        return distance;
+    }
+
+    /**
+     * Circle containment by squared distance against the squared radius - no square root, and
+     * Haversine only inside the boundary band or when the fast path can't decide.
+     */
+    static boolean circleContains(double centerLatitude, double centerLongitude, double cosLatitude,
+            double sinLatitude, double radiusMeters, double latitude, double longitude) {
+        double distanceSquared = planarDistanceSquared(
+                centerLatitude, centerLongitude, cosLatitude, sinLatitude, latitude, longitude);
+        double band = boundaryBand(radiusMeters);
+        double inner = radiusMeters - band;
+        double outer = radiusMeters + band;
+        if (inner > 0 && distanceSquared <= inner * inner && inner <= FAST_PATH_MAX_METERS) {
+            return true;
+        }
+        if (distanceSquared >= outer * outer) {
+            // Beyond the fast path range the projection may be off by a few percent, never by half
+            if (distanceSquared <= FAST_PATH_MAX_METERS * FAST_PATH_MAX_METERS
+                    || distanceSquared >= 4 * outer * outer) {
+                return false;
+            }
+        }
+        return haversineMeters(centerLatitude, centerLongitude, latitude, longitude) <= radiusMeters;
+    }
+
+    /**
+     * Squared flat-projection distance from a centre in square meters. The longitude scale is
+     * cos(mid latitude), expanded to first order around the centre so no trig is needed per point.
+     */
+    static double planarDistanceSquared(double centerLatitude, double centerLongitude, double cosLatitude,
+            double sinLatitude, double latitude, double longitude) {
+        double dLat = latitude - centerLatitude;
+        double dLon = longitude - centerLongitude;
+        if (dLon > 180) {
+            dLon -= 360;
+        } else if (dLon < -180) {
+            dLon += 360;
+        }
+        double cosMid = Math.max(cosLatitude - sinLatitude * Math.toRadians(dLat) * 0.5, 0.01);
+        double dx = dLon * METERS_PER_DEGREE * cosMid;
+        double dy = dLat * METERS_PER_DEGREE;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Flat-projection distance between two points, falling back to Haversine beyond the fast
+     * path range. Only for decisions that tolerate ~0.01% error, like jitter filtering.
+     */
+    public static double approximateDistanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double lat1Rad = Math.toRadians(lat1);
+        double distance = Math.sqrt(planarDistanceSquared(
+                lat1, lon1, Math.cos(lat1Rad), Math.sin(lat1Rad), lat2, lon2));
+        return distance > FAST_PATH_MAX_METERS ? haversineMeters(lat1, lon1, lat2, lon2) : distance;
+    }
+
+    private static double boundaryBand(double radiusMeters) {
+        return BOUNDARY_BAND_MIN_METERS + radiusMeters * BOUNDARY_BAND_FRACTION;
+    }
+
+    private boolean insideBoundingBox(double latitude, double longitude) {
+        return latitude >= minLatitude && latitude <= maxLatitude
+                && longitude >= minLongitude && longitude <= maxLongitude;
+    }
+
+    // In the polygon's projection, where the box is exactly the vertices' bounding rectangle
+    private double boundingBoxDistanceMeters(double px, double py) {
+        double minX = (minLongitude - originLongitude) * metersPerDegreeLongitude;
+        double maxX = (maxLongitude - originLongitude) * metersPerDegreeLongitude;
+        double minY = (minLatitude - originLatitude) * METERS_PER_DEGREE;
+        double maxY = (maxLatitude - originLatitude) * METERS_PER_DEGREE;
+        double dx = Math.max(Math.max(minX - px, px - maxX), 0);
+        double dy = Math.max(Math.max(minY - py, py - maxY), 0);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // A degree of longitude shrinks towards the poles - clamp so boxes stay finite
+    private static double metersPerDegreeLongitude(double latitude) {
+        return METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+    }
+
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
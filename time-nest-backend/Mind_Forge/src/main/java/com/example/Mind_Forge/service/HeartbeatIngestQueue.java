@@ -0,0 +1,161 @@
+package com.example.Mind_Forge.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded queue that takes heartbeat processing off the request thread.
+ *
+ * Heartbeats are split into lanes by user id, each drained by its own worker, so one user's
+ * heartbeats are always applied in arrival order while different users proceed in parallel.
+ * When a lane is full {@link #submit} refuses the heartbeat and the caller tells the device
+ * to retry later instead of letting request threads pile up behind a slow database.
+ */
+@Component
+public class HeartbeatIngestQueue {
+
+    private final TimeLogService timeLogService;
+    @Getter
+    private final boolean enabled;
+    @Getter
+    private final int retryAfterSeconds;
+    private final List<BlockingQueue<QueuedHeartbeat>> lanes = new ArrayList<>();
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+
+    private final Timer processingLag;
+    private final Timer processingTime;
+    private final Counter rejected;
+    private final Counter failed;
+
+    private static final Logger log = LoggerFactory.getLogger(HeartbeatIngestQueue.class);
+
+    public HeartbeatIngestQueue(TimeLogService timeLogService, MeterRegistry meterRegistry,
+            @Value("${heartbeat.async.enabled:true}") boolean enabled,
+            @Value("${heartbeat.async.lanes:4}") int laneCount,
+            @Value("${heartbeat.async.lane-capacity:1000}") int laneCapacity,
+            @Value("${heartbeat.async.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.timeLogService = timeLogService;
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayBlockingQueue<>(laneCapacity));
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(laneCount, runnable -> {
+            Thread thread = new Thread(runnable, "heartbeat-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("heartbeat.queue.depth", lanes, l -> l.stream().mapToInt(BlockingQueue::size).sum())
+                .description("Heartbeats waiting to be processed")
+                .register(meterRegistry);
+        this.processingLag = Timer.builder("heartbeat.queue.lag")
+                .description("Time between a heartbeat being accepted and processed")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.processingTime = Timer.builder("heartbeat.queue.processing")
+                .description("Time spent applying a heartbeat")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("heartbeat.queue.rejected")
+                .description("Heartbeats refused because their lane was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder("heartbeat.queue.failed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (BlockingQueue<QueuedHeartbeat> lane : lanes) {
+            workers.submit(() -> drain(lane));
+        }
+        log.info("Heartbeat ingest queue started with {} lanes", lanes.size());
+    }
+
+    /**
+     * @return false if the user's lane is full - the heartbeat was not accepted
+     */
+    public boolean submit(ActiveShiftState shift, Double latitude, Double longitude) {
+        BlockingQueue<QueuedHeartbeat> lane = lanes.get(Math.floorMod(shift.getUserId().hashCode(), lanes.size()));
+        boolean accepted = lane.offer(new QueuedHeartbeat(
+                shift, latitude, longitude, LocalDateTime.now(), System.nanoTime()));
+        if (!accepted) {
+            rejected.increment();
+        }
+        return accepted;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Apply anything still queued so it reaches the registry's final flush
+        for (BlockingQueue<QueuedHeartbeat> lane : lanes) {
+            QueuedHeartbeat heartbeat;
+            while ((heartbeat = lane.poll()) != null) {
+                process(heartbeat);
+            }
+        }
+    }
+
+    private void drain(BlockingQueue<QueuedHeartbeat> lane) {
+        while (running) {
+            try {
+                process(lane.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void process(QueuedHeartbeat heartbeat) {
+        processingLag.record(System.nanoTime() - heartbeat.acceptedAtNanos(), TimeUnit.NANOSECONDS);
+        long start = System.nanoTime();
+        try {
+            // The shift may have ended while the heartbeat was queued
+            ActiveShiftState shift = heartbeat.shift();
+            if (timeLogService.findActiveShift(shift.getUserId()) != shift) {
+                log.debug("Dropping queued heartbeat for ended shift {}", shift.getTimeLogId());
+                return;
+            }
+            timeLogService.recordHeartbeat(
+                    heartbeat.shift(), heartbeat.latitude(), heartbeat.longitude(), heartbeat.receivedAt());
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Failed to process queued heartbeat for shift {}", heartbeat.shift().getTimeLogId(), e);
+        } finally {
+            processingTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private record QueuedHeartbeat(ActiveShiftState shift, Double latitude, Double longitude,
+            LocalDateTime receivedAt, long acceptedAtNanos) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.Mind_Forge.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recommends how long a device may wait before its next heartbeat.
+ *
+ * The interval is the time the employee would need to reach the work area boundary at their
+ * recent speed (never assumed slower than walking pace), clamped to [min, max]. Devices in a
+ * violation or grace period always get the minimum so the server sees them leave or return quickly.
+ * The maximum must stay below the monitoring heartbeat timeout, otherwise a compliant device
+ * backing off would be flagged as stale.
+ */
+@Component
+public class HeartbeatIntervalAdvisor {
+
+    private static final double WALKING_SPEED_METERS_PER_SECOND = 1.4;
+
+    private final int minSeconds;
+    private final int maxSeconds;
+    private final int defaultSeconds;
+
+    public HeartbeatIntervalAdvisor(
+            @Value("${heartbeat.interval.min-seconds:15}") int minSeconds,
+            @Value("${heartbeat.interval.max-seconds:150}") int maxSeconds,
+            @Value("${heartbeat.interval.default-seconds:120}") int defaultSeconds) {
+        this.minSeconds = minSeconds;
+        this.maxSeconds = maxSeconds;
+        this.defaultSeconds = defaultSeconds;
+    }
+
+    /**
+     * Caller must hold the state's monitor.
+     */
+    public int recommendIntervalSeconds(ActiveShiftState shift) {
+        if (shift.getViolationCount() > 0) {
+            return minSeconds;
+        }
+        if (!shift.hasWorkArea() || shift.getLastDistanceMeters() == null) {
+            return defaultSeconds;
+        }
+
+        double marginMeters = shift.getGeofence().allowedDistanceMeters() - shift.getLastDistanceMeters();
+        if (marginMeters <= 0) {
+            return minSeconds;
+        }
+
+        double speed = Math.max(shift.getLastSpeedMetersPerSecond(), WALKING_SPEED_METERS_PER_SECOND);
+        long secondsToBoundary = (long) (marginMeters / speed);
+        return (int) Math.max(minSeconds, Math.min(maxSeconds, secondsToBoundary));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.Mind_Forge.service;
+
+/**
+ * Result of applying a heartbeat to an active shift.
+ */
+public enum HeartbeatOutcome {
+    // Position recorded, no change in violation state
+    RECORDED,
+    // Employee just left the work area - grace period started
+    VIOLATION_STARTED,
+    // Employee is back inside the work area
+    RETURNED_TO_COMPLIANCE,
+    // Grace period elapsed outside the work area - shift was closed
+    AUTO_CLOCKED_OUT
+}
@@ -0,0 +1,10 @@
+package com.example.Mind_Forge.service;
+
+/**
+ * What the heartbeat endpoints report back to the device.
+ *
+ * @param processed            heartbeats applied (1 for a single heartbeat)
+ * @param nextHeartbeatSeconds recommended delay before the device's next heartbeat, 0 once the shift has ended
+ */
+public record HeartbeatResult(HeartbeatOutcome outcome, int processed, int nextHeartbeatSeconds) {
+}
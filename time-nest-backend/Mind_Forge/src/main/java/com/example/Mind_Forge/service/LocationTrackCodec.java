@@ -0,0 +1,85 @@
+package com.example.Mind_Forge.service;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact encoding for location track segments.
+ *
+ * Coordinates are fixed-point at 1e-6 degrees (~0.1 m) and timestamps are whole seconds
+ * from the segment start. Each point is stored as the zig-zag varint delta from the previous
+ * point, so a stationary employee costs about 3 bytes per ping instead of a full row.
+ */
+public final class LocationTrackCodec {
+
+    private static final double SCALE = 1_000_000d;
+
+    private LocationTrackCodec() {
+    }
+
+    public static byte[] encode(List<TrackPoint> points, LocalDateTime segmentStart) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(points.size() * 4);
+        long previousLat = 0;
+        long previousLon = 0;
+        long previousSeconds = 0;
+        for (TrackPoint point : points) {
+            long lat = Math.round(point.latitude() * SCALE);
+            long lon = Math.round(point.longitude() * SCALE);
+            long seconds = Duration.between(segmentStart, point.timestamp()).getSeconds();
+            writeVarLong(out, zigZag(lat - previousLat));
+            writeVarLong(out, zigZag(lon - previousLon));
+            writeVarLong(out, zigZag(seconds - previousSeconds));
+            previousLat = lat;
+            previousLon = lon;
+            previousSeconds = seconds;
+        }
+        return out.toByteArray();
+    }
+
+    public static List<TrackPoint> decode(byte[] data, int pointCount, LocalDateTime segmentStart) {
+        List<TrackPoint> points = new ArrayList<>(pointCount);
+        int[] position = { 0 };
+        long lat = 0;
+        long lon = 0;
+        long seconds = 0;
+        while (position[0] < data.length) {
+            lat += unZigZag(readVarLong(data, position));
+            lon += unZigZag(readVarLong(data, position));
+            seconds += unZigZag(readVarLong(data, position));
+            points.add(new TrackPoint(lat / SCALE, lon / SCALE, segmentStart.plusSeconds(seconds)));
+        }
+        return points;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] data, int[] position) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = data[position[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+}
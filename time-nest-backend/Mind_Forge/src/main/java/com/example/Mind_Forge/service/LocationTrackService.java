@@ -0,0 +1,190 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.model.LocationTrackSegment;
+import com.example.Mind_Forge.repository.HeartbeatBatchRepository;
+import com.example.Mind_Forge.repository.HeartbeatBatchRepository.TrackSegmentInsert;
+import com.example.Mind_Forge.repository.LocationTrackSegmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Append-only location history for shifts.
+ *
+ * Heartbeat positions are buffered per shift and sealed into delta-encoded segments once a
+ * segment is full, spans the configured window, would cross midnight, or the shift ends.
+ * Sealed segments are bulk inserted on the write-behind flush. A shift's track is read back
+ * from its own segments only (indexed by time_log_id, segment_start), merged with anything
+ * still buffered in memory.
+ */
+@Service
+public class LocationTrackService {
+
+    private final LocationTrackSegmentRepository segmentRepository;
+    private final HeartbeatBatchRepository heartbeatBatchRepository;
+    private final int maxPointsPerSegment;
+    private final Duration maxSegmentSpan;
+    private final int insertBatchSize;
+
+    private final Map<Long, TrackBuffer> openBuffers = new ConcurrentHashMap<>();
+    private final Queue<TrackSegmentInsert> sealedSegments = new ConcurrentLinkedQueue<>();
+
+    private static final Logger log = LoggerFactory.getLogger(LocationTrackService.class);
+
+    public LocationTrackService(LocationTrackSegmentRepository segmentRepository,
+            HeartbeatBatchRepository heartbeatBatchRepository,
+            @Value("${location-track.max-points-per-segment:120}") int maxPointsPerSegment,
+            @Value("${location-track.max-segment-minutes:10}") int maxSegmentMinutes,
+            @Value("${location-track.insert-batch-size:200}") int insertBatchSize) {
+        this.segmentRepository = segmentRepository;
+        this.heartbeatBatchRepository = heartbeatBatchRepository;
+        this.maxPointsPerSegment = maxPointsPerSegment;
+        this.maxSegmentSpan = Duration.ofMinutes(maxSegmentMinutes);
+        this.insertBatchSize = insertBatchSize;
+    }
+
+    public void append(Long timeLogId, double latitude, double longitude, LocalDateTime takenAt) {
+        TrackBuffer buffer = openBuffers.computeIfAbsent(timeLogId, TrackBuffer::new);
+        synchronized (buffer) {
+            if (!buffer.points.isEmpty() && !buffer.accepts(takenAt)) {
+                seal(buffer);
+            }
+            buffer.points.add(new TrackPoint(latitude, longitude, takenAt));
+        }
+    }
+
+    /**
+     * Seal whatever is buffered for a shift that just ended.
+     */
+    public void close(Long timeLogId) {
+        TrackBuffer buffer = openBuffers.remove(timeLogId);
+        if (buffer != null) {
+            synchronized (buffer) {
+                seal(buffer);
+            }
+        }
+    }
+
+    /**
+     * Drop the track of a deleted shift, buffered and persisted.
+     */
+    public void discard(Long timeLogId) {
+        openBuffers.remove(timeLogId);
+        sealedSegments.removeIf(segment -> segment.timeLogId().equals(timeLogId));
+        segmentRepository.deleteByTimeLogId(timeLogId);
+    }
+
+    /**
+     * Seal buffers that have been open longer than the segment window, then bulk insert
+     * every sealed segment.
+     */
+    public synchronized int flush() {
+        LocalDateTime now = LocalDateTime.now();
+        for (TrackBuffer buffer : openBuffers.values()) {
+            synchronized (buffer) {
+                if (!buffer.points.isEmpty()
+                        && buffer.points.get(0).timestamp().plus(maxSegmentSpan).isBefore(now)) {
+                    seal(buffer);
+                }
+            }
+        }
+
+        List<TrackSegmentInsert> pending = new ArrayList<>();
+        TrackSegmentInsert segment;
+        while ((segment = sealedSegments.poll()) != null) {
+            pending.add(segment);
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            heartbeatBatchRepository.insertTrackSegments(pending, insertBatchSize);
+            log.debug("Appended {} location track segments", pending.size());
+        } catch (Exception e) {
+            log.error("Failed to append {} location track segments - will retry", pending.size(), e);
+            sealedSegments.addAll(pending);
+        }
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        for (Long timeLogId : List.copyOf(openBuffers.keySet())) {
+            close(timeLogId);
+        }
+        flush();
+    }
+
+    public List<TrackPoint> getTrack(Long timeLogId) {
+        List<TrackPoint> track = new ArrayList<>();
+        for (LocationTrackSegment segment : segmentRepository.findByTimeLogIdOrderBySegmentStartAsc(timeLogId)) {
+            track.addAll(LocationTrackCodec.decode(
+                    segment.getEncodedPoints(), segment.getPointCount(), segment.getSegmentStart()));
+        }
+
+        // Not yet written
+        for (TrackSegmentInsert segment : sealedSegments) {
+            if (segment.timeLogId().equals(timeLogId)) {
+                track.addAll(LocationTrackCodec.decode(
+                        segment.encodedPoints(), segment.pointCount(), segment.segmentStart()));
+            }
+        }
+        TrackBuffer buffer = openBuffers.get(timeLogId);
+        if (buffer != null) {
+            synchronized (buffer) {
+                track.addAll(buffer.points);
+            }
+        }
+
+        track.sort(Comparator.comparing(TrackPoint::timestamp));
+        return track;
+    }
+
+    // Caller must hold the buffer's monitor
+    private void seal(TrackBuffer buffer) {
+        if (buffer.points.isEmpty()) {
+            return;
+        }
+        LocalDateTime segmentStart = buffer.points.get(0).timestamp();
+        LocalDateTime segmentEnd = buffer.points.get(buffer.points.size() - 1).timestamp();
+        sealedSegments.add(new TrackSegmentInsert(
+                buffer.timeLogId,
+                segmentStart,
+                segmentEnd,
+                buffer.points.size(),
+                LocationTrackCodec.encode(buffer.points, segmentStart)));
+        buffer.points.clear();
+    }
+
+    private class TrackBuffer {
+        private final Long timeLogId;
+        private final List<TrackPoint> points = new ArrayList<>();
+
+        private TrackBuffer(Long timeLogId) {
+            this.timeLogId = timeLogId;
+        }
+
+        // Segments are capped in size and span, never go back in time and never cross midnight
+        private boolean accepts(LocalDateTime takenAt) {
+            LocalDateTime first = points.get(0).timestamp();
+            LocalDateTime last = points.get(points.size() - 1).timestamp();
+            return points.size() < maxPointsPerSegment
+                    && !takenAt.isBefore(last)
+                    && takenAt.toLocalDate().equals(first.toLocalDate())
+                    && !takenAt.isAfter(first.plus(maxSegmentSpan));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.repository.MonitoringLeaseRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Splits shift monitoring between app instances with leases held in the database.
+ *
+ * Company ids are bucketed into a fixed number of partitions. On every {@link #renew()} the
+ * instance records that it is alive, works out its fair share (partitions / live instances,
+ * rounded up), renews the leases it holds, releases any above its share and claims free or
+ * expired partitions up to it. A new instance therefore gets partitions as soon as the others
+ * release their surplus on their next renewal, and the partitions of an instance that dies are
+ * taken over once its leases expire. Ownership is only trusted until the lease expiry of the
+ * last successful renewal, so an instance that can't reach the database stops sweeping.
+ *
+ * With monitoring.lease.enabled=false the instance owns every partition.
+ */
+@Component
+public class MonitoringLeaseManager {
+
+    private final MonitoringLeaseRepository leaseRepository;
+    private final Clock clock;
+    private final String instanceId;
+    private final int partitionCount;
+    private final Duration leaseDuration;
+    private final boolean enabled;
+    private final Set<Integer> allPartitions;
+
+    private volatile Set<Integer> ownedPartitions = Set.of();
+    private volatile LocalDateTime ownedUntil = LocalDateTime.MIN;
+    private volatile boolean initialized;
+
+    private static final Logger log = LoggerFactory.getLogger(MonitoringLeaseManager.class);
+
+    @Autowired
+    public MonitoringLeaseManager(MonitoringLeaseRepository leaseRepository, MeterRegistry meterRegistry,
+            @Value("${monitoring.lease.enabled:true}") boolean enabled,
+            @Value("${monitoring.lease.partitions:16}") int partitionCount,
+            @Value("${monitoring.lease.duration-ms:30000}") long leaseDurationMillis,
+            @Value("${monitoring.lease.instance-id:}") String instanceId) {
+        this(leaseRepository, Clock.systemDefaultZone(),
+                instanceId.isBlank() ? defaultInstanceId() : instanceId,
+                partitionCount, Duration.ofMillis(leaseDurationMillis), enabled);
+
+        Gauge.builder("monitoring.leases.owned", this, manager -> manager.getOwnedPartitions().size())
+                .description("Monitoring partitions this instance currently holds")
+                .register(meterRegistry);
+    }
+
+    public MonitoringLeaseManager(MonitoringLeaseRepository leaseRepository, Clock clock, String instanceId,
+            int partitionCount, Duration leaseDuration, boolean enabled) {
+        this.leaseRepository = leaseRepository;
+        this.clock = clock;
+        this.instanceId = instanceId;
+        this.partitionCount = partitionCount;
+        this.leaseDuration = leaseDuration;
+        this.enabled = enabled;
+        this.allPartitions = IntStream.range(0, partitionCount).boxed().collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Heartbeat this instance and rebalance its leases. Runs on a fixed delay well below the lease duration.
+     */
+    public synchronized void renew() {
+        if (!enabled) {
+            return;
+        }
+        if (!initialized) {
+            leaseRepository.ensurePartitions(partitionCount);
+            initialized = true;
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime expiresAt = now.plus(leaseDuration);
+
+        leaseRepository.recordInstanceHeartbeat(instanceId, now);
+        int liveInstances = Math.max(1, leaseRepository.countLiveInstances(now.minus(leaseDuration)));
+        int fairShare = (partitionCount + liveInstances - 1) / liveInstances;
+
+        List<Integer> owned = new ArrayList<>(leaseRepository.renewLeases(instanceId, expiresAt));
+
+        // Hand surplus back so newly started instances can pick it up
+        while (owned.size() > fairShare) {
+            int partition = owned.remove(owned.size() - 1);
+            leaseRepository.release(partition, instanceId);
+        }
+
+        if (owned.size() < fairShare) {
+            for (int partition : leaseRepository.findClaimablePartitions(now)) {
+                if (owned.size() >= fairShare) {
+                    break;
+                }
+                if (leaseRepository.claim(partition, instanceId, now, expiresAt)) {
+                    owned.add(partition);
+                }
+            }
+        }
+
+        // Instance ids are per process, so rows of long-gone instances would otherwise pile up
+        leaseRepository.deleteInstancesNotSeenSince(now.minus(leaseDuration.multipliedBy(10)));
+
+        Set<Integer> previous = ownedPartitions;
+        ownedPartitions = Set.copyOf(owned);
+        ownedUntil = expiresAt;
+        if (!previous.equals(ownedPartitions)) {
+            log.info("Instance {} now holds {} of {} monitoring partitions ({} live instances): {}",
+                    instanceId, owned.size(), partitionCount, liveInstances, owned);
+        }
+    }
+
+    /**
+     * Partitions this instance may sweep right now - empty once its last renewal has expired.
+     */
+    public Set<Integer> getOwnedPartitions() {
+        if (!enabled) {
+            return allPartitions;
+        }
+        return LocalDateTime.now(clock).isBefore(ownedUntil) ? ownedPartitions : Set.of();
+    }
+
+    public boolean owns(Long companyId) {
+        return getOwnedPartitions().contains(partitionOf(companyId));
+    }
+
+    /**
+     * Shifts without a company fall in partition 0. Matches MOD(COALESCE(company_id, 0), partitions) in SQL.
+     */
+    public int partitionOf(Long companyId) {
+        return companyId == null ? 0 : (int) Math.floorMod(companyId, (long) partitionCount);
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    // Let the other instances take over straight away instead of waiting for the leases to expire
+    @PreDestroy
+    public synchronized void release() {
+        if (!enabled || !initialized) {
+            return;
+        }
+        try {
+            leaseRepository.releaseAll(instanceId);
+            leaseRepository.deleteInstance(instanceId);
+            ownedPartitions = Set.of();
+            log.info("Instance {} released its monitoring partitions", instanceId);
+        } catch (Exception e) {
+            log.warn("Could not release monitoring partitions - they will expire on their own", e);
+        }
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "instance";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
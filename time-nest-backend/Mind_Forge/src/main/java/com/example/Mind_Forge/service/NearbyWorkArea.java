@@ -0,0 +1,21 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.service.WorkAreaGeometryCache.CachedWorkArea;
+
+/**
+ * A work area found near a point. distanceMeters is as defined by
+ * {@link GeofenceGeometry#distanceMeters} for the area's shape.
+ */
+public record NearbyWorkArea(CachedWorkArea workArea, double distanceMeters) {
+
+    /**
+     * How far inside the boundary the point is (negative when outside)
+     */
+    public double marginMeters() {
+        return workArea.geofence().allowedDistanceMeters() - distanceMeters;
+    }
+
+    public boolean withinGeofence() {
+        return marginMeters() >= 0;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.repository.NotificationArchiveRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps shift_violation_notifications small by moving read notifications older than
+ * notifications.retention.max-age-days to the archive table (or deleting them when
+ * archiving is off). Unread notifications are never touched.
+ *
+ * Rows are moved in batches of notifications.retention.batch-size, each its own short
+ * statement, with a pause in between so the job never holds many locks or competes with
+ * request traffic for long. A run stops after max-batches-per-run and carries on next time.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private final NotificationArchiveRepository archiveRepository;
+    private final boolean enabled;
+    private final boolean archive;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long pauseMillis;
+    private final Counter movedCounter;
+    private final Timer runTimer;
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRetentionService.class);
+
+    public record RetentionResult(int rowsMoved, int batches, Duration elapsed, boolean complete) {
+    }
+
+    public NotificationRetentionService(NotificationArchiveRepository archiveRepository, MeterRegistry meterRegistry,
+            @Value("${notifications.retention.enabled:true}") boolean enabled,
+            @Value("${notifications.retention.archive:true}") boolean archive,
+            @Value("${notifications.retention.max-age-days:30}") int maxAgeDays,
+            @Value("${notifications.retention.batch-size:500}") int batchSize,
+            @Value("${notifications.retention.max-batches-per-run:200}") int maxBatchesPerRun,
+            @Value("${notifications.retention.pause-ms:100}") long pauseMillis) {
+        this.archiveRepository = archiveRepository;
+        this.enabled = enabled;
+        this.archive = archive;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseMillis = pauseMillis;
+
+        this.movedCounter = Counter.builder("notifications.retention.rows")
+                .tag("action", archive ? "archived" : "purged")
+                .description("Read notifications moved out of the live table")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("notifications.retention.run")
+                .description("Duration of a notification retention run")
+                .register(meterRegistry);
+    }
+
+    public RetentionResult run() {
+        if (!enabled) {
+            return new RetentionResult(0, 0, Duration.ZERO, true);
+        }
+
+        long startNanos = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        int rowsMoved = 0;
+        int batches = 0;
+        boolean complete = false;
+
+        while (batches < maxBatchesPerRun) {
+            int moved = archive
+                    ? archiveRepository.archiveReadBefore(cutoff, batchSize, LocalDateTime.now())
+                    : archiveRepository.purgeReadBefore(cutoff, batchSize);
+            batches++;
+            rowsMoved += moved;
+            movedCounter.increment(moved);
+
+            if (moved < batchSize) {
+                complete = true;
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+        runTimer.record(elapsed);
+        RetentionResult result = new RetentionResult(rowsMoved, batches, elapsed, complete);
+        log.info("Notification retention {} {} read notifications older than {} days in {} batches, {} ms{}",
+                archive ? "archived" : "purged", rowsMoved, maxAge.toDays(), batches, elapsed.toMillis(),
+                complete ? "" : " (more left for the next run)");
+        return result;
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
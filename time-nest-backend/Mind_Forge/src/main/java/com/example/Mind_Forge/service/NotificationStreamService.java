@@ -0,0 +1,261 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.model.ShiftViolationNotification;
+import com.example.Mind_Forge.repository.ShiftViolationNotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes shift notifications to employees over Server-Sent Events, replacing the notification poll.
+ *
+ * Every ShiftAlertEvent is sent to the user's open streams once the transaction that created it
+ * commits. Persisted notifications carry their id as the SSE event id, so a client reconnecting
+ * with Last-Event-ID gets the unread notifications it missed replayed from the database; real-time
+ * geofence warnings have no row and are sent without an id. Streams are closed after
+ * notifications.stream.timeout-ms.
+ *
+ * Events only reach streams open on the instance that published them, so every
+ * notifications.stream.poll-ms one query per batch of connected users fetches the unread rows
+ * newer than what each user's streams have already been sent - notifications created on another
+ * instance arrive within a poll interval instead of at the next reconnect.
+ */
+@Service
+public class NotificationStreamService {
+
+    public static final String EVENT_NAME = "notification";
+
+    // Users per poll query - keeps the IN list bounded
+    private static final int POLL_BATCH_SIZE = 500;
+
+    private final ShiftViolationNotificationRepository notificationRepository;
+    private final long timeoutMillis;
+    private final long reconnectMillis;
+    private final Map<Long, Set<SseEmitter>> emittersByUserId = new ConcurrentHashMap<>();
+    // Newest notification id sent to each connected user's streams - the poll only fetches past it
+    private final Map<Long, Long> sentUpToByUserId = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final Counter sentCounter;
+    private final Counter replayedCounter;
+    private final Counter polledCounter;
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationStreamService.class);
+
+    public NotificationStreamService(ShiftViolationNotificationRepository notificationRepository,
+            MeterRegistry meterRegistry,
+            @Value("${notifications.stream.timeout-ms:300000}") long timeoutMillis,
+            @Value("${notifications.stream.reconnect-ms:5000}") long reconnectMillis) {
+        this.notificationRepository = notificationRepository;
+        this.timeoutMillis = timeoutMillis;
+        this.reconnectMillis = reconnectMillis;
+
+        Gauge.builder("notifications.stream.open", openStreams, AtomicInteger::get)
+                .description("Notification streams currently open on this instance")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("notifications.stream.sent")
+                .description("Notifications pushed to open streams as they were created")
+                .register(meterRegistry);
+        this.replayedCounter = Counter.builder("notifications.stream.replayed")
+                .description("Unread notifications replayed to streams on (re)connect")
+                .register(meterRegistry);
+        this.polledCounter = Counter.builder("notifications.stream.polled")
+                .description("Notifications created on other instances picked up by the stream poll")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a stream for the user and replay the unread notifications newer than lastEventId
+     * (all unread ones when the client has none yet).
+     */
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+
+        // Register before replaying so nothing created in between is lost - the client ignores duplicates
+        emittersByUserId.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(emitter);
+        openStreams.incrementAndGet();
+        advanceSentUpTo(userId, lastEventId != null ? lastEventId : 0L);
+        emitter.onCompletion(() -> unregister(userId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unregister(userId, emitter));
+
+        try {
+            emitter.send(SseEmitter.event().comment("connected").reconnectTime(reconnectMillis));
+            replay(userId, lastEventId, emitter);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Notification stream for user {} closed during replay: {}", userId, e.getMessage());
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    // fallbackExecution: real-time alerts are published outside any transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShiftAlert(ShiftAlertEvent event) {
+        Set<SseEmitter> emitters = emittersByUserId.get(event.userId());
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> payload = payload(event.notificationId(), event.type(), event.message(),
+                event.timeLogId(), event.createdAt());
+        for (SseEmitter emitter : emitters) {
+            if (send(event.userId(), emitter, event.notificationId(), payload)) {
+                sentCounter.increment();
+            }
+        }
+        if (event.notificationId() != null) {
+            advanceSentUpTo(event.userId(), event.notificationId());
+        }
+    }
+
+    /**
+     * Send the unread notifications created since the last poll - on this or any other instance -
+     * to the streams open here. Ones this instance already pushed are skipped by id; a race with
+     * onShiftAlert can send one twice, which the client ignores.
+     */
+    public void pollForNewNotifications() {
+        List<Long> userIds = new ArrayList<>(emittersByUserId.keySet());
+        for (int from = 0; from < userIds.size(); from += POLL_BATCH_SIZE) {
+            List<Long> batch = userIds.subList(from, Math.min(from + POLL_BATCH_SIZE, userIds.size()));
+            long afterId = Long.MAX_VALUE;
+            for (Long userId : batch) {
+                afterId = Math.min(afterId, sentUpToByUserId.getOrDefault(userId, 0L));
+            }
+            if (afterId == Long.MAX_VALUE) {
+                continue;
+            }
+
+            Map<Long, Long> newestByUserId = new HashMap<>();
+            for (ShiftViolationNotification notification : notificationRepository
+                    .findByUserIdInAndIsReadFalseAndIdGreaterThanOrderByIdAsc(batch, afterId)) {
+                Long userId = notification.getUser().getId();
+                Set<SseEmitter> emitters = emittersByUserId.get(userId);
+                if (emitters == null || notification.getId() <= sentUpToByUserId.getOrDefault(userId, 0L)) {
+                    continue;
+                }
+                Map<String, Object> payload = payload(notification.getId(), notification.getNotificationType(),
+                        notification.getMessage(), notification.getTimeLog().getId(), notification.getCreatedAt());
+                for (SseEmitter emitter : emitters) {
+                    if (send(userId, emitter, notification.getId(), payload)) {
+                        polledCounter.increment();
+                    }
+                }
+                newestByUserId.put(userId, notification.getId());
+            }
+
+            // Mark as delivered in one statement per user (will be marked as read when user dismisses)
+            newestByUserId.forEach((userId, newestId) -> {
+                advanceSentUpTo(userId, newestId);
+                notificationRepository.markDeliveredUpTo(userId, newestId);
+            });
+        }
+    }
+
+    /**
+     * Comment frame on every open stream so proxies don't drop idle connections
+     * and streams whose client went away are noticed.
+     */
+    public void sendKeepAlive() {
+        emittersByUserId.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                    unregister(userId, emitter);
+                }
+            }
+        });
+    }
+
+    public int getOpenStreamCount() {
+        return openStreams.get();
+    }
+
+    private void replay(Long userId, Long lastEventId, SseEmitter emitter) throws IOException {
+        List<ShiftViolationNotification> missed = notificationRepository
+                .findByUserIdAndIsReadFalseAndIdGreaterThanOrderByIdAsc(userId, lastEventId != null ? lastEventId : 0L);
+
+        for (ShiftViolationNotification notification : missed) {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(notification.getId()))
+                    .name(EVENT_NAME)
+                    .data(payload(notification.getId(), notification.getNotificationType(), notification.getMessage(),
+                            notification.getTimeLog().getId(), notification.getCreatedAt())));
+        }
+        replayedCounter.increment(missed.size());
+
+        // Mark as delivered in one statement (will be marked as read when user dismisses)
+        if (!missed.isEmpty()) {
+            long newestId = missed.get(missed.size() - 1).getId();
+            advanceSentUpTo(userId, newestId);
+            notificationRepository.markDeliveredUpTo(userId, newestId);
+        }
+    }
+
+    private void advanceSentUpTo(Long userId, long notificationId) {
+        // Only while the user still has a stream here, so closed streams don't leave marks behind
+        emittersByUserId.computeIfPresent(userId, (id, emitters) -> {
+            sentUpToByUserId.merge(userId, notificationId, Math::max);
+            return emitters;
+        });
+    }
+
+    private boolean send(Long userId, SseEmitter emitter, Long notificationId, Map<String, Object> payload) {
+        SseEmitter.SseEventBuilder event = SseEmitter.event().name(EVENT_NAME).data(payload);
+        if (notificationId != null) {
+            event.id(String.valueOf(notificationId));
+        }
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping notification stream for user {}: {}", userId, e.getMessage());
+            emitter.completeWithError(e);
+            unregister(userId, emitter);
+            return false;
+        }
+    }
+
+    private void unregister(Long userId, SseEmitter emitter) {
+        emittersByUserId.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                openStreams.decrementAndGet();
+            }
+            if (emitters.isEmpty()) {
+                sentUpToByUserId.remove(userId);
+                return null;
+            }
+            return emitters;
+        });
+    }
+
+    // Same field names as the ShiftViolationNotification JSON the poll used to return
+    private static Map<String, Object> payload(Long id, String type, String message, Long timeLogId,
+            LocalDateTime createdAt) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", id);
+        payload.put("notificationType", type);
+        payload.put("message", message);
+        payload.put("timeLogId", timeLogId);
+        payload.put("createdAt", createdAt);
+        return payload;
+    }
+}
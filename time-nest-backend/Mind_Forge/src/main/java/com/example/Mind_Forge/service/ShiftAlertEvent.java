@@ -0,0 +1,16 @@
+package com.example.Mind_Forge.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever an employee should be told about a change to their shift
+ * (geofence warning, auto clock-out). Listeners push it to connected devices.
+ *
+ * @param notificationId id of the persisted ShiftViolationNotification, or null for real-time alerts
+ */
+public record ShiftAlertEvent(Long userId, Long timeLogId, Long notificationId, String type,
+                              String message, LocalDateTime createdAt) {
+
+    public static final String WARNING = "WARNING";
+    public static final String AUTO_CLOCKOUT = "AUTO_CLOCKOUT";
+}
@@ -0,0 +1,16 @@
+package com.example.Mind_Forge.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Slim row read by the monitoring sweep for a shift that may need action - just the fields
+ * the stale-shift rules look at, instead of the TimeLog with its user, company and work area.
+ */
+public record ShiftCheckCandidate(Long timeLogId, Long userId, String userEmail, Long companyId,
+                                  Long workAreaId, LocalDateTime lastLocationCheck, Integer violationCount,
+                                  LocalDateTime firstViolationTime) {
+
+    public boolean isWarned() {
+        return violationCount != null && violationCount > 0;
+    }
+}
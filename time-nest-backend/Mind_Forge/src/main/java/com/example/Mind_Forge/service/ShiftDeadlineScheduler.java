@@ -0,0 +1,210 @@
+package com.example.Mind_Forge.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline queue that fires each active shift's heartbeat timeout and grace period expiry
+ * individually, instead of waiting for a periodic scan to notice them.
+ *
+ * Every shift has at most one armed deadline - the earliest time its state could change
+ * (see {@link ShiftMonitoringService#nextDeadline}). Heartbeats only ever push that time later,
+ * so re-arming on a heartbeat is a map lookup: the queued deadline is left in place and, when it
+ * comes due, is re-queued at the shift's current deadline. Only deadlines that are really due
+ * reach the database, through {@link ShiftMonitoringService#checkShiftDeadline}.
+ */
+@Component
+public class ShiftDeadlineScheduler {
+
+    private static final long RETRY_DELAY_MILLIS = 30_000;
+
+    private final ActiveShiftRegistry activeShiftRegistry;
+    private final ShiftMonitoringService monitoringService;
+    private final boolean enabled;
+    private final DelayQueue<ShiftDeadline> deadlines = new DelayQueue<>();
+    private final Map<Long, ShiftDeadline> armedByTimeLogId = new ConcurrentHashMap<>();
+    private final ExecutorService worker;
+    private volatile boolean running = true;
+
+    private final Counter fired;
+    private final Counter rearmed;
+    private final Counter failed;
+    private final Timer lateness;
+
+    private static final Logger log = LoggerFactory.getLogger(ShiftDeadlineScheduler.class);
+
+    public ShiftDeadlineScheduler(ActiveShiftRegistry activeShiftRegistry,
+            ShiftMonitoringService monitoringService,
+            MeterRegistry meterRegistry,
+            @Value("${monitoring.deadlines.enabled:true}") boolean enabled) {
+        this.activeShiftRegistry = activeShiftRegistry;
+        this.monitoringService = monitoringService;
+        this.enabled = enabled;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shift-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("monitoring.deadlines.armed", armedByTimeLogId, Map::size)
+                .description("Active shifts with a pending monitoring deadline")
+                .register(meterRegistry);
+        this.fired = Counter.builder("monitoring.deadlines.fired")
+                .description("Deadlines that were due and checked against the database")
+                .register(meterRegistry);
+        this.rearmed = Counter.builder("monitoring.deadlines.rearmed")
+                .description("Deadlines pushed back by heartbeats received since they were armed")
+                .register(meterRegistry);
+        this.failed = Counter.builder("monitoring.deadlines.failed")
+                .register(meterRegistry);
+        this.lateness = Timer.builder("monitoring.deadlines.lateness")
+                .description("Time between a deadline coming due and being checked")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Runs after ActiveShiftRegistry.rebuild, which is ordered first
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Shift deadline scheduler disabled - relying on the periodic monitoring sweep");
+            return;
+        }
+        for (ActiveShiftState state : activeShiftRegistry.activeShifts()) {
+            arm(state);
+        }
+        worker.submit(this::run);
+        log.info("Shift deadline scheduler started with {} armed shifts", armedByTimeLogId.size());
+    }
+
+    /**
+     * Make sure the shift has a deadline no later than the one its current state calls for.
+     * Cheap enough to call on every heartbeat.
+     */
+    public void arm(ActiveShiftState state) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime due;
+        synchronized (state) {
+            due = ShiftMonitoringService.nextDeadline(state.getStartTime(), state.getLastLocationCheck(),
+                    state.getViolationCount(), state.getFirstViolationTime());
+        }
+        armedByTimeLogId.compute(state.getTimeLogId(), (timeLogId, current) -> {
+            long dueAtMillis = toMillis(due);
+            if (current != null && current.dueAtMillis() <= dueAtMillis) {
+                // Fires first and re-arms itself from the shift's state at that point
+                return current;
+            }
+            ShiftDeadline deadline = new ShiftDeadline(timeLogId, state.getUserId(), dueAtMillis);
+            deadlines.offer(deadline);
+            return deadline;
+        });
+    }
+
+    /**
+     * Forget the shift's deadline - call when it ends. The queued entry is discarded when it comes due.
+     */
+    public void cancel(Long timeLogId) {
+        armedByTimeLogId.remove(timeLogId);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.shutdownNow();
+        worker.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                ShiftDeadline deadline = deadlines.take();
+                // Superseded by an earlier deadline, or the shift ended
+                if (armedByTimeLogId.get(deadline.timeLogId()) != deadline) {
+                    continue;
+                }
+                process(deadline);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void process(ShiftDeadline deadline) {
+        // Heartbeats received here since the deadline was armed have moved it back
+        ActiveShiftState state = activeShiftRegistry.get(deadline.userId());
+        if (state != null && state.getTimeLogId().equals(deadline.timeLogId())) {
+            LocalDateTime due;
+            synchronized (state) {
+                due = ShiftMonitoringService.nextDeadline(state.getStartTime(), state.getLastLocationCheck(),
+                        state.getViolationCount(), state.getFirstViolationTime());
+            }
+            if (due.isAfter(LocalDateTime.now())) {
+                rearmed.increment();
+                reschedule(deadline, toMillis(due));
+                return;
+            }
+        }
+
+        fired.increment();
+        lateness.record(Math.max(0, System.currentTimeMillis() - deadline.dueAtMillis()), TimeUnit.MILLISECONDS);
+        try {
+            LocalDateTime next = monitoringService.checkShiftDeadline(deadline.timeLogId());
+            if (next == null) {
+                armedByTimeLogId.remove(deadline.timeLogId(), deadline);
+            } else {
+                reschedule(deadline, toMillis(next));
+            }
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Failed to check deadline for shift {} - retrying", deadline.timeLogId(), e);
+            reschedule(deadline, System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+        }
+    }
+
+    private void reschedule(ShiftDeadline deadline, long dueAtMillis) {
+        ShiftDeadline next = new ShiftDeadline(deadline.timeLogId(), deadline.userId(), dueAtMillis);
+        // Only if nothing replaced or cancelled it in the meantime
+        if (armedByTimeLogId.replace(deadline.timeLogId(), deadline, next)) {
+            deadlines.offer(next);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record ShiftDeadline(Long timeLogId, Long userId, long dueAtMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((ShiftDeadline) other).dueAtMillis);
+        }
+    }
+}
@@ -5,43 +5,92 @@ import com.example.Mind_Forge.model.ShiftViolationNotification;
 import com.example.Mind_Forge.model.TimeLog;
 import com.example.Mind_Forge.model.User;
 import com.example.Mind_Forge.model.WorkArea;
+import com.example.Mind_Forge.repository.ExecutiveAlertDigestRepository;
+import com.example.Mind_Forge.repository.ExecutiveAlertDigestRepository.DigestEntry;
+import com.example.Mind_Forge.repository.ShiftMonitoringBatchRepository;
+import com.example.Mind_Forge.repository.ShiftMonitoringBatchRepository.ClockedOutShift;
+import com.example.Mind_Forge.repository.ShiftMonitoringBatchRepository.WarnedShift;
 import com.example.Mind_Forge.repository.ShiftViolationNotificationRepository;
 import com.example.Mind_Forge.repository.TimeLogRepository;
 import com.example.Mind_Forge.repository.UserRepository;
-import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @Service
 public class ShiftMonitoringService {
 
     private final TimeLogRepository timeLogRepository;
     private final ShiftViolationNotificationRepository notificationRepository;
-    private final WorkAreaService workAreaService;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutbox;
+    private final EmailTemplates emailTemplates;
     private final UserRepository userRepository;
+    private final ActiveShiftRegistry activeShiftRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LocationTrackService locationTrackService;
+    private final ShiftMonitoringBatchRepository batchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor monitoringExecutor;
+    private final MonitoringLeaseManager leaseManager;
+    private final ExecutiveAlertDigestRepository digestRepository;
+    private final int pageSize;
+    private final boolean digestEnabled;
 
     private static final Logger log = LoggerFactory.getLogger(ShiftMonitoringService.class);
-    private static final int HEARTBEAT_TIMEOUT_MINUTES = 3; // Reduced for faster detection (max 10min to auto-clockout)
+    private static final int HEARTBEAT_TIMEOUT_MINUTES = 3; // Reduced for faster detection
+    // Time between the warning and the auto clock-out, same as the real-time heartbeat path
+    private static final int GRACE_PERIOD_MINUTES = 3;
+    private static final String STALE_WARNING_REASON =
+            "Location signal lost - app may be closed or location services disabled";
+    private static final String STALE_CLOCKOUT_REASON = "Location signal remained unavailable after warning";
+    private static final int DIGEST_BATCH_SIZE = 1000;
 
     public ShiftMonitoringService(
             TimeLogRepository timeLogRepository,
             ShiftViolationNotificationRepository notificationRepository,
-            WorkAreaService workAreaService,
-            EmailService emailService,
-            UserRepository userRepository) {
+            EmailOutboxService emailOutbox,
+            EmailTemplates emailTemplates,
+            UserRepository userRepository,
+            ActiveShiftRegistry activeShiftRegistry,
+            ApplicationEventPublisher eventPublisher,
+            LocationTrackService locationTrackService,
+            ShiftMonitoringBatchRepository batchRepository,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("monitoringExecutor") TaskExecutor monitoringExecutor,
+            MonitoringLeaseManager leaseManager,
+            ExecutiveAlertDigestRepository digestRepository,
+            @Value("${monitoring.sweep.page-size:500}") int pageSize,
+            @Value("${monitoring.executive-alerts.digest.enabled:false}") boolean digestEnabled) {
         this.timeLogRepository = timeLogRepository;
         this.notificationRepository = notificationRepository;
-        this.workAreaService = workAreaService;
-        this.emailService = emailService;
+        this.emailOutbox = emailOutbox;
+        this.emailTemplates = emailTemplates;
         this.userRepository = userRepository;
+        this.activeShiftRegistry = activeShiftRegistry;
+        this.eventPublisher = eventPublisher;
+        this.locationTrackService = locationTrackService;
+        this.batchRepository = batchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.monitoringExecutor = monitoringExecutor;
+        this.leaseManager = leaseManager;
+        this.digestRepository = digestRepository;
+        this.pageSize = pageSize;
+        this.digestEnabled = digestEnabled;
     }
 
     // Get count of active shifts for early exit optimization
@@ -49,50 +98,216 @@ public class ShiftMonitoringService {
         return timeLogRepository.countByIsActiveShiftTrue();
     }
 
-    // Called by scheduled job every 5 minutes
-    @Transactional
+    /**
+     * Earliest time monitoring could act on a shift in this state: the heartbeat timeout while
+     * it is compliant, the end of the grace period once it has been warned.
+     */
+    public static LocalDateTime nextDeadline(LocalDateTime startTime, LocalDateTime lastLocationCheck,
+            Integer violationCount, LocalDateTime firstViolationTime) {
+        if (violationCount != null && violationCount > 0 && firstViolationTime != null) {
+            return firstViolationTime.plusMinutes(GRACE_PERIOD_MINUTES);
+        }
+        LocalDateTime lastSeen = lastLocationCheck != null ? lastLocationCheck : startTime;
+        return lastSeen.plusMinutes(HEARTBEAT_TIMEOUT_MINUTES);
+    }
+
+    /**
+     * Check one shift whose deadline has come due (called by ShiftDeadlineScheduler).
+     *
+     * @return when the shift should be checked next, or null if it no longer needs monitoring
+     */
+    public LocalDateTime checkShiftDeadline(Long timeLogId) {
+        return checkShift(timeLogId, LocalDateTime.now());
+    }
+
+    private static LocalDateTime nextDeadline(TimeLog timeLog) {
+        return nextDeadline(timeLog.getStartTime(), timeLog.getLastLocationCheck(),
+                timeLog.getViolationCount(), timeLog.getFirstViolationTime());
+    }
+
+    /**
+     * Safety-net sweep, run by the scheduled job and the manual trigger.
+     *
+     * Shifts are sharded by company and the shards run in parallel on monitoringExecutor, whose
+     * size is capped below the connection pool. Each shard is settled in one short transaction
+     * with two set-based statements - auto clock-out of warned shifts whose grace period is
+     * over, and a warning for the unwarned ones - so a surge of dead phones costs a couple of statements
+     * per company. A failing shard doesn't affect the others, and executive emails are written
+     * to the email outbox in the shard's transaction and sent in the background.
+     *
+     * Candidates are read as slim ShiftCheckCandidate rows, keyset-paged by id, so memory
+     * stays at one page however many shifts are active. With several instances each one only
+     * sweeps the company partitions it holds a lease on (see MonitoringLeaseManager).
+     */
     public void checkAllActiveShifts() {
         LocalDateTime now = LocalDateTime.now();
         log.info("========================================");
         log.info("Starting scheduled shift monitoring check at {}", now);
         log.info("Heartbeat timeout threshold: {} minutes", HEARTBEAT_TIMEOUT_MINUTES);
 
+        // Other instances sweep the partitions this one doesn't hold
+        Set<Integer> partitions = leaseManager.getOwnedPartitions();
+        if (partitions.isEmpty()) {
+            log.info("No monitoring partitions held by this instance - skipping");
+            log.info("========================================");
+            return;
+        }
+        log.info("Sweeping {} of {} monitoring partitions", partitions.size(), leaseManager.getPartitionCount());
+
+        // Make sure the query sees the latest heartbeats
+        activeShiftRegistry.flush();
+
         LocalDateTime thresholdTime = now.minusMinutes(HEARTBEAT_TIMEOUT_MINUTES);
         log.info("Checking for shifts with last heartbeat before: {}", thresholdTime);
 
-        List<TimeLog> activeShifts = timeLogRepository.findActiveShiftsNeedingCheck(thresholdTime);
-
-        log.info("Query returned {} active shifts to check", activeShifts.size());
+        int candidateCount = 0;
+        int shardCount = 0;
+        int warnedCount = 0;
+        int clockedOutCount = 0;
+        int errorCount = 0;
+        long afterId = 0;
+        List<ShiftCheckCandidate> page;
+        do {
+            page = timeLogRepository.findShiftsNeedingCheck(
+                    thresholdTime, afterId, leaseManager.getPartitionCount(), partitions, Limit.of(pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).timeLogId();
+            candidateCount += page.size();
+
+            // Shifts without a company share one shard
+            Map<Long, List<ShiftCheckCandidate>> shards = page.stream()
+                    .collect(Collectors.groupingBy(
+                            candidate -> candidate.companyId() != null ? candidate.companyId() : 0L));
+            shardCount += shards.size();
+
+            List<CompletableFuture<ShardResult>> results = shards.entrySet().stream()
+                    .map(shard -> CompletableFuture
+                            .supplyAsync(() -> checkShard(shard.getKey(), shard.getValue(), now), monitoringExecutor)
+                            .exceptionally(e -> {
+                                log.error("Monitoring shard for company {} failed", shard.getKey(), e);
+                                return new ShardResult(0, 0, shard.getValue().size());
+                            }))
+                    .toList();
+
+            for (CompletableFuture<ShardResult> result : results) {
+                ShardResult shardResult = result.join();
+                warnedCount += shardResult.warned();
+                clockedOutCount += shardResult.clockedOut();
+                errorCount += shardResult.errors();
+            }
+        } while (page.size() == pageSize);
 
-        if (activeShifts.isEmpty()) {
+        if (candidateCount == 0) {
             log.info("No active shifts require monitoring at this time");
             log.info("========================================");
             return;
         }
 
-        int processedCount = 0;
-        int errorCount = 0;
+        log.info("Monitoring check complete: {} candidates in {} shards - {} warned, {} auto clocked out, {} errors",
+                candidateCount, shardCount, warnedCount, clockedOutCount, errorCount);
+        log.info("========================================");
+    }
 
-        for (TimeLog timeLog : activeShifts) {
-            try {
-                log.debug("Checking shift ID {} for user {}", timeLog.getId(), timeLog.getUser().getEmail());
-                checkShiftCompliance(timeLog);
-                processedCount++;
-            } catch (Exception e) {
-                errorCount++;
-                log.error("Error checking shift {} for user {}",
-                        timeLog.getId(), timeLog.getUser().getEmail(), e);
+    private ShardResult checkShard(Long companyId, List<ShiftCheckCandidate> candidates, LocalDateTime now) {
+        LocalDateTime staleBefore = now.minusMinutes(HEARTBEAT_TIMEOUT_MINUTES);
+        LocalDateTime graceEndedBefore = now.minusMinutes(GRACE_PERIOD_MINUTES);
+
+        // Pre-split by the state read with the page; the statements re-check it, and skip the
+        // round trip entirely when their list is empty
+        List<Long> toClockOut = new ArrayList<>();
+        List<Long> toWarn = new ArrayList<>();
+        for (ShiftCheckCandidate candidate : candidates) {
+            if (candidate.workAreaId() == null) {
+                continue;
+            }
+            if (!candidate.isWarned()) {
+                toWarn.add(candidate.timeLogId());
+            } else if (candidate.firstViolationTime() == null
+                    || !candidate.firstViolationTime().isAfter(graceEndedBefore)) {
+                toClockOut.add(candidate.timeLogId());
+            } else {
+                log.debug("User {} still in grace period, ends at {}",
+                        candidate.userEmail(), candidate.firstViolationTime().plusMinutes(GRACE_PERIOD_MINUTES));
             }
         }
 
-        log.info("Monitoring check complete: {} processed, {} errors", processedCount, errorCount);
-        log.info("========================================");
+        ShardUpdate update = transactionTemplate.execute(status -> {
+            List<ClockedOutShift> clockedOut = batchRepository.autoClockOutStaleShifts(
+                    toClockOut, now, graceEndedBefore, staleBefore,
+                    STALE_CLOCKOUT_REASON, "You have been automatically clocked out. Reason: " + STALE_CLOCKOUT_REASON);
+            List<WarnedShift> warned = batchRepository.warnStaleShifts(
+                    toWarn, now, staleBefore,
+                    "Warning: " + STALE_WARNING_REASON + ". Please return to work area immediately or you will be automatically clocked out.");
+
+            for (WarnedShift shift : warned) {
+                eventPublisher.publishEvent(new ShiftAlertEvent(shift.userId(), shift.timeLogId(),
+                        shift.notificationId(), ShiftAlertEvent.WARNING, shift.message(), shift.createdAt()));
+            }
+            List<ExecutiveAlert> alerts = new ArrayList<>(clockedOut.size());
+            for (ClockedOutShift shift : clockedOut) {
+                eventPublisher.publishEvent(new ShiftAlertEvent(shift.userId(), shift.timeLogId(),
+                        shift.notificationId(), ShiftAlertEvent.AUTO_CLOCKOUT, shift.message(), shift.createdAt()));
+                alerts.add(new ExecutiveAlert(shift.companyId(), shift.companyName(), shift.username(),
+                        shift.email(), shift.workAreaName(), shift.endTime(), STALE_CLOCKOUT_REASON, shift.hours(), 0));
+            }
+            queueExecutiveNotifications(alerts);
+            return new ShardUpdate(warned, clockedOut);
+        });
+
+        // The registry only follows once the shard's changes are committed
+        for (WarnedShift shift : update.warned()) {
+            activeShiftRegistry.syncViolationState(shift.userId(), shift.timeLogId(), 1, now);
+        }
+        for (ClockedOutShift shift : update.clockedOut()) {
+            activeShiftRegistry.remove(shift.userId(), shift.timeLogId());
+            log.warn("Auto clocked out user {} at {} - Reason: {}", shift.email(), shift.endTime(), STALE_CLOCKOUT_REASON);
+            locationTrackService.close(shift.timeLogId());
+        }
+        log.debug("Shard for company {} done: {} warned, {} auto clocked out",
+                companyId, update.warned().size(), update.clockedOut().size());
+        return new ShardResult(update.warned().size(), update.clockedOut().size(), 0);
+    }
+
+    // One short transaction, which also queues the executive email
+    private LocalDateTime checkShift(Long timeLogId, LocalDateTime now) {
+        return transactionTemplate.execute(status -> checkShiftInTransaction(timeLogId, now));
     }
 
-    private void checkShiftCompliance(TimeLog timeLog) {
+    private LocalDateTime checkShiftInTransaction(Long timeLogId, LocalDateTime now) {
+        // Deadlines fire wherever the shift's heartbeats were seen, which may be several instances
+        if (!batchRepository.lockActiveShift(timeLogId)) {
+            return null;
+        }
+        TimeLog timeLog = timeLogRepository.findActiveShiftWithWorkAreaById(timeLogId).orElse(null);
+        if (timeLog == null || timeLog.getWorkArea() == null) {
+            return null;
+        }
+        activeShiftRegistry.reconcile(timeLog);
+
+        LocalDateTime due = nextDeadline(timeLog);
+        if (due.isAfter(now)) {
+            // A heartbeat arrived since the shift was picked for checking
+            return due;
+        }
+
+        log.debug("Checking shift ID {} for user {}", timeLog.getId(), timeLog.getUser().getEmail());
+        ExecutiveAlert alert = checkShiftCompliance(timeLog, now);
+        if (alert != null) {
+            queueExecutiveNotifications(List.of(alert));
+        }
+        if (!Boolean.TRUE.equals(timeLog.getIsActiveShift())) {
+            return null;
+        }
+        LocalDateTime next = nextDeadline(timeLog);
+        return next.isAfter(now) ? next : null;
+    }
+
+    private ExecutiveAlert checkShiftCompliance(TimeLog timeLog, LocalDateTime now) {
         if (timeLog == null || timeLog.getUser() == null) {
             log.warn("Skipping null timeLog or user");
-            return;
+            return null;
         }
 
         User user = timeLog.getUser();
@@ -100,25 +315,22 @@ public class ShiftMonitoringService {
 
         if (workArea == null) {
             log.warn("TimeLog {} has no work area assigned, skipping", timeLog.getId());
-            return;
+            return null;
         }
 
         // Check if location data is stale (no heartbeat received)
+        // Inclusive, so a deadline firing exactly on the timeout sees the shift as stale
         boolean locationStale = timeLog.getLastLocationCheck() == null ||
-                timeLog.getLastLocationCheck().isBefore(LocalDateTime.now().minusMinutes(HEARTBEAT_TIMEOUT_MINUTES));
+                !timeLog.getLastLocationCheck().plusMinutes(HEARTBEAT_TIMEOUT_MINUTES).isAfter(now);
 
         // Check geofence if we have recent location data
         boolean outsideGeofence = false;
         double distance = 0;
 
+        GeofenceGeometry geofence = geofenceFor(timeLog, workArea);
         if (!locationStale && timeLog.getCurrentLatitude() != null && timeLog.getCurrentLongitude() != null) {
-            distance = workAreaService.calculateDistance(
-                    workArea.getLatitude(),
-                    workArea.getLongitude(),
-                    timeLog.getCurrentLatitude(),
-                    timeLog.getCurrentLongitude()
-            );
-            outsideGeofence = distance > workArea.getRadiusMeters();
+            distance = geofence.distanceMeters(timeLog.getCurrentLatitude(), timeLog.getCurrentLongitude());
+            outsideGeofence = distance > geofence.allowedDistanceMeters();
         }
 
         // Determine violation status
@@ -131,8 +343,9 @@ public class ShiftMonitoringService {
                 timeLog.setViolationCount(0);
                 timeLog.setFirstViolationTime(null);
                 timeLogRepository.save(timeLog);
+                activeShiftRegistry.syncViolationStateAfterCommit(timeLog);
             }
-            return;
+            return null;
         }
 
         // Violation detected
@@ -140,22 +353,41 @@ public class ShiftMonitoringService {
 
         if (currentViolations == 0) {
             // First violation - send warning
-            handleFirstViolation(timeLog, locationStale, distance, workArea);
+            handleFirstViolation(timeLog, locationStale, distance, geofence);
         } else if (currentViolations == 1) {
-            // Second violation - auto clock out
-            handleSecondViolation(timeLog, locationStale, distance, workArea);
+            // Second violation - auto clock out once the grace period is over
+            LocalDateTime graceEnds = nextDeadline(timeLog);
+            if (graceEnds.isAfter(now)) {
+                log.debug("User {} still violating, grace period ends at {}", user.getEmail(), graceEnds);
+                return null;
+            }
+            return handleSecondViolation(timeLog, locationStale, distance);
         }
         // If violations > 1, already handled (edge case: multiple checks before processing)
+        return null;
+    }
+
+    // The registry already holds the compiled geofence of every active shift
+    private GeofenceGeometry geofenceFor(TimeLog timeLog, WorkArea workArea) {
+        ActiveShiftState state = activeShiftRegistry.get(timeLog.getUser().getId());
+        if (state != null) {
+            synchronized (state) {
+                activeShiftRegistry.refreshWorkArea(state);
+                if (workArea.getId().equals(state.getWorkAreaId()) && state.getGeofence() != null) {
+                    return state.getGeofence();
+                }
+            }
+        }
+        return GeofenceGeometry.of(workArea);
     }
 
     private void handleFirstViolation(TimeLog timeLog, boolean locationStale,
-                                       double distance, WorkArea workArea) {
+                                       double distance, GeofenceGeometry geofence) {
         User user = timeLog.getUser();
 
         String reason = locationStale
-                ? "Location signal lost - app may be closed or location services disabled"
-                : String.format("Outside work area (%.0f meters away, must be within %.0f meters)",
-                distance, workArea.getRadiusMeters());
+                ? STALE_WARNING_REASON
+                : "Outside work area (" + geofence.describeDistance(distance) + ")";
 
         log.warn("First violation for user {} - Reason: {}", user.getEmail(), reason);
 
@@ -163,6 +395,7 @@ public class ShiftMonitoringService {
         timeLog.setViolationCount(1);
         timeLog.setFirstViolationTime(LocalDateTime.now());
         timeLogRepository.save(timeLog);
+        activeShiftRegistry.syncViolationStateAfterCommit(timeLog);
 
         // Create warning notification
         ShiftViolationNotification notification = new ShiftViolationNotification();
@@ -174,17 +407,17 @@ public class ShiftMonitoringService {
         notification.setLongitude(timeLog.getCurrentLongitude());
         notification.setDistanceFromWorkarea(distance);
         notificationRepository.save(notification);
+        publishAlert(notification);
 
         log.info("Created warning notification for user {}", user.getEmail());
     }
 
-    private void handleSecondViolation(TimeLog timeLog, boolean locationStale,
-                                        double distance, WorkArea workArea) {
+    private ExecutiveAlert handleSecondViolation(TimeLog timeLog, boolean locationStale, double distance) {
         User user = timeLog.getUser();
         LocalDateTime detectionTime = LocalDateTime.now();
 
         String reason = locationStale
-                ? "Location signal remained unavailable after warning"
+                ? STALE_CLOCKOUT_REASON
                 : String.format("Remained outside work area (%.0f meters away)", distance);
 
         log.warn("Second violation for user {} - AUTO CLOCK OUT. Reason: {}",
@@ -203,6 +436,8 @@ public class ShiftMonitoringService {
         timeLog.setHours(hours);
 
         timeLogRepository.save(timeLog);
+        activeShiftRegistry.removeAfterCommit(user.getId(), timeLog.getId());
+        locationTrackService.close(timeLog.getId());
 
         // Create auto-clockout notification for employee
         ShiftViolationNotification notification = new ShiftViolationNotification();
@@ -214,63 +449,131 @@ public class ShiftMonitoringService {
         notification.setLongitude(timeLog.getCurrentLongitude());
         notification.setDistanceFromWorkarea(distance);
         notificationRepository.save(notification);
-
-        // Send email to executives
-        sendExecutiveNotification(timeLog, user, detectionTime, reason, distance);
+        publishAlert(notification);
 
         log.info("Auto clocked out user {} at {}", user.getEmail(), detectionTime);
+
+        // The caller queues the executive email in this same transaction
+        Company company = user.getCompany();
+        return new ExecutiveAlert(company != null ? company.getId() : null, company != null ? company.getName() : null,
+                user.getActualUsername(), user.getEmail(),
+                timeLog.getWorkArea().getName(), detectionTime, reason, hours, distance);
+    }
+
+    // Delivered to connected devices once the monitoring transaction commits
+    private void publishAlert(ShiftViolationNotification notification) {
+        eventPublisher.publishEvent(new ShiftAlertEvent(
+                notification.getUser().getId(),
+                notification.getTimeLog().getId(),
+                notification.getId(),
+                notification.getNotificationType(),
+                notification.getMessage(),
+                notification.getCreatedAt()));
     }
 
-    private void sendExecutiveNotification(TimeLog timeLog, User employee,
-                                            LocalDateTime clockoutTime, String reason, double distance) {
-        Company company = employee.getCompany();
-        if (company == null) {
-            log.warn("Cannot send executive notification - employee has no company");
+    /**
+     * Queue the executive emails for these auto clock-outs in the caller's transaction.
+     * Executives are looked up once per company, each alert is formatted once, and the emails
+     * go into the outbox in one batch, which sends them in provider batch requests. In digest
+     * mode the alerts are stored instead and sent per company by {@link #sendExecutiveDigests()}.
+     */
+    private void queueExecutiveNotifications(List<ExecutiveAlert> alerts) {
+        List<ExecutiveAlert> withCompany = new ArrayList<>(alerts.size());
+        for (ExecutiveAlert alert : alerts) {
+            if (alert.companyId() == null) {
+                log.warn("Cannot send executive notification for {} - employee has no company", alert.employeeEmail());
+            } else {
+                withCompany.add(alert);
+            }
+        }
+        if (withCompany.isEmpty()) {
             return;
         }
 
-        // Find all executives in the company
-        List<User> executives = userRepository.findByCompanyAndRole(company, "executive");
-
-        if (executives.isEmpty()) {
-            log.warn("No executives found for company {}", company.getName());
+        if (digestEnabled) {
+            digestRepository.addAll(withCompany.stream()
+                    .map(alert -> new DigestEntry(alert.companyId(), alert.companyName(), alert.employeeName(),
+                            alert.employeeEmail(), alert.workAreaName(), alert.clockoutTime(), alert.reason(),
+                            alert.hours(), alert.distance()))
+                    .toList(), LocalDateTime.now());
+            log.info("Added {} auto clock-outs to the executive digest", withCompany.size());
             return;
         }
 
-        // Format email
-        String subject = String.format("Auto Clock-Out Alert: %s", employee.getActualUsername());
-        String htmlContent = String.format("""
-            <h2>Employee Automatically Clocked Out</h2>
-            <p>An employee has been automatically clocked out due to geofence violation.</p>
-            <hr>
-            <p><strong>Employee:</strong> %s (%s)</p>
-            <p><strong>Company:</strong> %s</p>
-            <p><strong>Work Area:</strong> %s</p>
-            <p><strong>Clock-out Time:</strong> %s</p>
-            <p><strong>Reason:</strong> %s</p>
-            <p><strong>Shift Duration:</strong> %.2f hours</p>
-            <p><strong>Location Status:</strong> %.0f meters from work area</p>
-            <hr>
-            <p><em>This is an automated notification from TimeNest.</em></p>
-            """,
-                employee.getActualUsername(),
-                employee.getEmail(),
-                company.getName(),
-                timeLog.getWorkArea().getName(),
-                clockoutTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-                reason,
-                timeLog.getHours(),
-                distance
-        );
-
-        // Send email to all executives
-        for (User executive : executives) {
-            try {
-                emailService.sendVerificationEmail(executive.getEmail(), subject, htmlContent);
-                log.info("Sent auto-clockout notification to executive {}", executive.getEmail());
-            } catch (IOException e) {
-                log.error("Failed to send email to executive {}", executive.getEmail(), e);
+        List<EmailMessage> emails = new ArrayList<>();
+        Map<Long, List<ExecutiveAlert>> byCompany = withCompany.stream()
+                .collect(Collectors.groupingBy(ExecutiveAlert::companyId));
+        byCompany.forEach((companyId, companyAlerts) -> {
+            List<User> executives = findExecutives(companyId, companyAlerts.get(0).companyName());
+            for (ExecutiveAlert alert : companyAlerts) {
+                String subject = String.format("Auto Clock-Out Alert: %s", alert.employeeName());
+                String htmlContent = emailTemplates.executiveAlertEmail(alert.employeeName(),
+                        alert.employeeEmail(), alert.companyName(), alert.workAreaName(), alert.clockoutTime(),
+                        alert.reason(), alert.hours(), alert.distance());
+                for (User executive : executives) {
+                    emails.add(new EmailMessage(executive.getEmail(), subject, htmlContent));
+                }
             }
+        });
+        emailOutbox.enqueueAll(emails);
+        log.info("Queued {} auto-clockout notifications to executives for {} auto clock-outs",
+                emails.size(), withCompany.size());
+    }
+
+    /**
+     * Send each company's pending auto clock-outs to its executives as one digest email.
+     * Entries are taken and the digests queued in the same transaction, in chunks.
+     *
+     * @return auto clock-outs digested
+     */
+    public int sendExecutiveDigests() {
+        int digested = 0;
+        int taken;
+        do {
+            Integer count = transactionTemplate.execute(status -> {
+                List<DigestEntry> entries = digestRepository.takeBatch(DIGEST_BATCH_SIZE);
+                List<EmailMessage> emails = new ArrayList<>();
+                Map<Long, List<DigestEntry>> byCompany = entries.stream()
+                        .collect(Collectors.groupingBy(DigestEntry::companyId));
+                byCompany.forEach((companyId, companyEntries) -> {
+                    String companyName = companyEntries.get(0).companyName();
+                    // Counts clock-outs - the same employee can be clocked out more than once
+                    String subject = String.format("Auto Clock-Out Digest: %d clock-out%s",
+                            companyEntries.size(), companyEntries.size() == 1 ? "" : "s");
+                    String htmlContent = emailTemplates.executiveDigestEmail(companyName, companyEntries);
+                    for (User executive : findExecutives(companyId, companyName)) {
+                        emails.add(new EmailMessage(executive.getEmail(), subject, htmlContent));
+                    }
+                });
+                emailOutbox.enqueueAll(emails);
+                return entries.size();
+            });
+            taken = count != null ? count : 0;
+            digested += taken;
+        } while (taken == DIGEST_BATCH_SIZE);
+
+        if (digested > 0) {
+            log.info("Queued executive digests covering {} auto clock-outs", digested);
+        }
+        return digested;
+    }
+
+    private List<User> findExecutives(Long companyId, String companyName) {
+        List<User> executives = userRepository.findByCompanyIdAndRole(companyId, "executive");
+        if (executives.isEmpty()) {
+            log.warn("No executives found for company {}", companyName);
         }
+        return executives;
+    }
+
+    private record ShardResult(int warned, int clockedOut, int errors) {
+    }
+
+    private record ShardUpdate(List<WarnedShift> warned, List<ClockedOutShift> clockedOut) {
+    }
+
+    // What the auto clock-out email needs
+    private record ExecutiveAlert(Long companyId, String companyName, String employeeName, String employeeEmail,
+            String workAreaName, LocalDateTime clockoutTime, String reason, double hours, double distance) {
     }
 }
@@ -1,13 +1,17 @@
 package com.example.Mind_Forge.service;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,29 +23,45 @@ import com.example.Mind_Forge.dto.timelog.UpdateTimeLogDto;
 import com.example.Mind_Forge.model.Company;
 import com.example.Mind_Forge.model.TimeLog;
 import com.example.Mind_Forge.model.User;
-import com.example.Mind_Forge.model.WorkArea;
 import com.example.Mind_Forge.repository.CompanyRepository;
 import com.example.Mind_Forge.repository.TimeLogRepository;
 import com.example.Mind_Forge.repository.UserRepository;
+import com.example.Mind_Forge.service.WorkAreaGeometryCache.CachedWorkArea;
 
 @Service
 public class TimeLogService {
 
     private static final Logger logger = LoggerFactory.getLogger(TimeLogService.class);
+    private static final int MAX_HEARTBEAT_BATCH_SIZE = 500;
 
     private final TimeLogRepository timeLogRepository;
     private final UserRepository userRepository;
     private final CompanyRepository companyRepository;
     private final WorkAreaService workAreaService;
+    private final ActiveShiftRegistry activeShiftRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HeartbeatIntervalAdvisor intervalAdvisor;
+    private final LocationTrackService locationTrackService;
+    private final ShiftDeadlineScheduler deadlineScheduler;
 
     public TimeLogService(TimeLogRepository timeLogRepository,
             UserRepository userRepository,
             CompanyRepository companyRepository,
-            WorkAreaService workAreaService) {
+            WorkAreaService workAreaService,
+            ActiveShiftRegistry activeShiftRegistry,
+            ApplicationEventPublisher eventPublisher,
+            HeartbeatIntervalAdvisor intervalAdvisor,
+            LocationTrackService locationTrackService,
+            ShiftDeadlineScheduler deadlineScheduler) {
         this.timeLogRepository = timeLogRepository;
         this.userRepository = userRepository;
         this.companyRepository = companyRepository;
         this.workAreaService = workAreaService;
+        this.activeShiftRegistry = activeShiftRegistry;
+        this.eventPublisher = eventPublisher;
+        this.intervalAdvisor = intervalAdvisor;
+        this.locationTrackService = locationTrackService;
+        this.deadlineScheduler = deadlineScheduler;
     }
 
     private User getAuthenticatedUser() {
@@ -54,6 +74,16 @@ public class TimeLogService {
                 .orElseThrow(() -> new RuntimeException("Authenticated user not found"));
     }
 
+    // The JWT filter already loaded the User into the security context - reuse it instead of
+    // another findByEmail when only the id is needed (heartbeat hot path)
+    private User getAuthenticatedPrincipal() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (principal instanceof User user) {
+            return user;
+        }
+        return getAuthenticatedUser();
+    }
+
     public TimeLog createTimeLog(CreateTimeLogDto input) {
         User user = getAuthenticatedUser();
 
@@ -82,26 +112,26 @@ public class TimeLogService {
             }
 
             // Validate geofence - throws exception if not within range
-            workAreaService.validateGeofence(
+            CachedWorkArea workArea = workAreaService.validateGeofence(
+                    user.getCompany(),
                     input.getWorkAreaId(),
                     input.getCheckInLatitude(),
                     input.getCheckInLongitude());
 
-            // Get the work area and set it on the time log
-            WorkArea workArea = workAreaService.getWorkAreaById(input.getWorkAreaId());
-            timeLog.setWorkArea(workArea);
+            // Set the work area on the time log
+            timeLog.setWorkArea(workAreaService.getWorkAreaReference(workArea.id()));
             timeLog.setCheckInLatitude(input.getCheckInLatitude());
             timeLog.setCheckInLongitude(input.getCheckInLongitude());
 
             // Set location from work area name if not provided
             if (input.getLocation() == null || input.getLocation().isBlank()) {
-                timeLog.setLocation(workArea.getName());
+                timeLog.setLocation(workArea.name());
             } else {
                 timeLog.setLocation(input.getLocation());
             }
 
             logger.info("Employee '{}' clocked in at work area '{}' (distance validated)",
-                    user.getEmail(), workArea.getName());
+                    user.getEmail(), workArea.name());
         } else {
             // Legacy support: allow location without work area
             timeLog.setLocation(input.getLocation());
@@ -197,6 +227,30 @@ public class TimeLogService {
         }
 
         timeLogRepository.deleteById(id);
+        activeShiftRegistry.removeByTimeLogId(id);
+        deadlineScheduler.cancel(id);
+        locationTrackService.discard(id);
+    }
+
+    public List<TrackPoint> getShiftTrack(Long timeLogId) {
+        User user = getAuthenticatedUser();
+
+        TimeLog timeLog = timeLogRepository.findById(timeLogId)
+                .orElseThrow(() -> new RuntimeException("Time log not found"));
+
+        boolean isOwner = timeLog.getUser().getId().equals(user.getId());
+        boolean isCompanyExecutive = user.getRole().equalsIgnoreCase("executive")
+                && user.getCompany() != null
+                && timeLog.getCompany() != null
+                && timeLog.getCompany().getId().equals(user.getCompany().getId());
+
+        if (!isOwner && !isCompanyExecutive) {
+            logger.warn("Access denied: User '{}' tried to view the location track of time log ID {}",
+                    user.getEmail(), timeLogId);
+            throw new AccessDeniedException("You can only view location tracks for your own shifts or company");
+        }
+
+        return locationTrackService.getTrack(timeLogId);
     }
 
     // Shift lifecycle methods for active shift monitoring
@@ -216,12 +270,27 @@ public class TimeLogService {
         }
 
         // Validate geofence at clock-in
-        if (input.getWorkAreaId() == null || input.getCheckInLatitude() == null ||
-                input.getCheckInLongitude() == null) {
+        if (input.getCheckInLatitude() == null || input.getCheckInLongitude() == null) {
             throw new IllegalArgumentException("Work area and location are required to start shift");
         }
 
-        workAreaService.validateGeofence(
+        if (user.getCompany() == null) {
+            throw new IllegalStateException("User must belong to a company");
+        }
+
+        // No work area picked - clock in to the closest one the employee is standing in
+        if (input.getWorkAreaId() == null) {
+            NearbyWorkArea containing = workAreaService.findContainingWorkArea(
+                            user.getCompany(), input.getCheckInLatitude(), input.getCheckInLongitude())
+                    .orElseThrow(() -> new SecurityException(
+                            "You are not within any of your company's work areas. Move closer to clock in."));
+            input.setWorkAreaId(containing.workArea().id());
+            logger.info("Auto-selected work area '{}' for user {}", containing.workArea().name(), user.getEmail());
+        }
+
+        // One cached lookup both validates and supplies the work area
+        CachedWorkArea workArea = workAreaService.validateGeofence(
+                user.getCompany(),
                 input.getWorkAreaId(),
                 input.getCheckInLatitude(),
                 input.getCheckInLongitude()
@@ -234,9 +303,8 @@ public class TimeLogService {
         timeLog.setStartTime(LocalDateTime.now());
         timeLog.setIsActiveShift(true);
 
-        WorkArea workArea = workAreaService.getWorkAreaById(input.getWorkAreaId());
-        timeLog.setWorkArea(workArea);
-        timeLog.setLocation(workArea.getName());
+        timeLog.setWorkArea(workAreaService.getWorkAreaReference(workArea.id()));
+        timeLog.setLocation(workArea.name());
 
         // Set initial location
         timeLog.setCheckInLatitude(input.getCheckInLatitude());
@@ -250,134 +318,359 @@ public class TimeLogService {
         timeLog.setAutoClockedOut(false);
 
         TimeLog saved = timeLogRepository.save(timeLog);
+        activeShiftRegistry.registerAfterCommit(saved, workArea, deadlineScheduler::arm);
         logger.info("Started active shift {} for user {}", saved.getId(), user.getEmail());
 
         return saved;
     }
 
-    @Transactional
-    public void updateLocationHeartbeat(LocationHeartbeatDto heartbeat) {
-        User user = getAuthenticatedUser();
+    // Evaluated against the in-memory ActiveShiftRegistry - the only database access is the
+    // write-behind flush, plus an immediate write when the shift gets auto clocked out
+    public HeartbeatResult updateLocationHeartbeat(LocationHeartbeatDto heartbeat) {
+        User user = getAuthenticatedPrincipal();
 
-        logger.info("Heartbeat received from user: {}", user.getEmail());
+        logger.debug("Heartbeat received from user: {}", user.getEmail());
         logger.debug("Heartbeat data - Lat: {}, Lng: {}, Timestamp: {}",
                 heartbeat.getLatitude(), heartbeat.getLongitude(), heartbeat.getTimestamp());
 
-        Optional<TimeLog> activeShiftOpt = timeLogRepository.findByUserAndIsActiveShiftTrue(user);
-        if (activeShiftOpt.isEmpty()) {
+        return recordHeartbeat(requireActiveShift(user), heartbeat.getLatitude(), heartbeat.getLongitude());
+    }
+
+    /**
+     * Apply a heartbeat to a shift that was already resolved by the caller (e.g. a WebSocket
+     * session bound at connect time). Does not touch the security context.
+     */
+    public HeartbeatResult recordHeartbeat(ActiveShiftState shift, Double latitude, Double longitude) {
+        return recordHeartbeat(shift, latitude, longitude, LocalDateTime.now());
+    }
+
+    /**
+     * Apply a heartbeat received at the given time - used by the ingest queue so that queueing
+     * delay doesn't eat into the geofence grace period.
+     */
+    public HeartbeatResult recordHeartbeat(ActiveShiftState shift, Double latitude, Double longitude,
+            LocalDateTime detectionTime) {
+        HeartbeatOutcome outcome;
+        int nextHeartbeatSeconds;
+        synchronized (shift) {
+            requireNotClosed(shift);
+            outcome = applyHeartbeat(shift, latitude, longitude, detectionTime);
+            nextHeartbeatSeconds = intervalAdvisor.recommendIntervalSeconds(shift);
+        }
+
+        if (outcome == HeartbeatOutcome.AUTO_CLOCKED_OUT) {
+            persistAutoClockOut(shift, detectionTime);
+            nextHeartbeatSeconds = 0;
+        } else {
+            deadlineScheduler.arm(shift);
+        }
+        publishAlert(shift, outcome, detectionTime);
+        return new HeartbeatResult(outcome, 1, nextHeartbeatSeconds);
+    }
+
+    /**
+     * Replay a backlog of heartbeats queued on the device while it was offline.
+     * One auth and shift lookup for the whole batch; heartbeats are applied in device
+     * timestamp order so the geofence grace period is measured against when the
+     * positions were actually taken. Replay stops if the shift gets auto clocked out.
+     */
+    @Transactional
+    public HeartbeatResult updateLocationHeartbeats(List<LocationHeartbeatDto> heartbeats) {
+        if (heartbeats == null || heartbeats.isEmpty()) {
+            throw new IllegalArgumentException("At least one heartbeat is required");
+        }
+        if (heartbeats.size() > MAX_HEARTBEAT_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_HEARTBEAT_BATCH_SIZE + " heartbeats can be sent at once");
+        }
+
+        User user = getAuthenticatedPrincipal();
+        ActiveShiftState shift = requireActiveShift(user);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<LocationHeartbeatDto> ordered = heartbeats.stream()
+                .filter(h -> h.getLatitude() != null && h.getLongitude() != null)
+                .sorted(Comparator.comparing(
+                        LocationHeartbeatDto::getTimestamp, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+
+        int applied = 0;
+        int backfilled = 0;
+        LocalDateTime detectionTime = null;
+        HeartbeatOutcome lastTransition = HeartbeatOutcome.RECORDED;
+        int nextHeartbeatSeconds;
+        synchronized (shift) {
+            requireNotClosed(shift);
+            for (LocationHeartbeatDto heartbeat : ordered) {
+                // Device clocks can't move the shift into the future, and positions older than the
+                // last one we have no longer count for the geofence - e.g. a live heartbeat got in
+                // first. They are still part of where the employee was, so they go into the track.
+                LocalDateTime takenAt = toServerTime(heartbeat.getTimestamp(), now);
+                if (shift.getLastLocationCheck() != null && takenAt.isBefore(shift.getLastLocationCheck())) {
+                    if (!takenAt.isBefore(shift.getStartTime())) {
+                        locationTrackService.append(shift.getTimeLogId(),
+                                heartbeat.getLatitude(), heartbeat.getLongitude(), takenAt);
+                        backfilled++;
+                    }
+                    continue;
+                }
+
+                applied++;
+                HeartbeatOutcome outcome = applyHeartbeat(shift, heartbeat.getLatitude(), heartbeat.getLongitude(), takenAt);
+                if (outcome != HeartbeatOutcome.RECORDED) {
+                    lastTransition = outcome;
+                }
+                if (outcome == HeartbeatOutcome.AUTO_CLOCKED_OUT) {
+                    detectionTime = takenAt;
+                    break;
+                }
+            }
+            nextHeartbeatSeconds = detectionTime != null ? 0 : intervalAdvisor.recommendIntervalSeconds(shift);
+        }
+
+        logger.info("Replayed {} of {} queued heartbeats for shift {} ({} older ones added to the track only)",
+                applied, heartbeats.size(), shift.getTimeLogId(), backfilled);
+
+        if (detectionTime != null) {
+            persistAutoClockOut(shift, detectionTime);
+        } else {
+            deadlineScheduler.arm(shift);
+        }
+        // Only the state the device ends up in is worth alerting about
+        publishAlert(shift, lastTransition, detectionTime != null ? detectionTime : now);
+        return new HeartbeatResult(lastTransition, applied, nextHeartbeatSeconds);
+    }
+
+    // Devices send instants (UTC); shift times are kept as server-local LocalDateTime
+    private static LocalDateTime toServerTime(Instant timestamp, LocalDateTime now) {
+        if (timestamp == null) {
+            return now;
+        }
+        LocalDateTime takenAt = LocalDateTime.ofInstant(timestamp, ZoneId.systemDefault());
+        return takenAt.isAfter(now) ? now : takenAt;
+    }
+
+    /**
+     * Resolve the authenticated employee's shift for a heartbeat that will be applied later by
+     * the HeartbeatIngestQueue. Only reads the registry, so it stays cheap when the database is slow.
+     */
+    public ActiveShiftState requireCurrentActiveShift() {
+        return requireActiveShift(getAuthenticatedPrincipal());
+    }
+
+    public int recommendIntervalSeconds(ActiveShiftState shift) {
+        synchronized (shift) {
+            return intervalAdvisor.recommendIntervalSeconds(shift);
+        }
+    }
+
+    public ActiveShiftState findActiveShift(Long userId) {
+        return activeShiftRegistry.getOrLoad(userId);
+    }
+
+    private ActiveShiftState requireActiveShift(User user) {
+        ActiveShiftState shift = activeShiftRegistry.getOrLoad(user.getId());
+        if (shift == null) {
             logger.warn("No active shift found for user {} - heartbeat rejected", user.getEmail());
             throw new IllegalStateException("No active shift found");
         }
+        return shift;
+    }
 
-        TimeLog timeLog = activeShiftOpt.get();
-        LocalDateTime beforeUpdate = timeLog.getLastLocationCheck();
+    // The shift was closed after the caller resolved it. Caller must hold the state's monitor.
+    private static void requireNotClosed(ActiveShiftState shift) {
+        if (shift.isClosed()) {
+            throw new IllegalStateException("No active shift found");
+        }
+    }
+
+    /**
+     * Apply one position taken at the given time to the shift state. Caller must hold the state's monitor.
+     */
+    private HeartbeatOutcome applyHeartbeat(ActiveShiftState shift, Double latitude, Double longitude, LocalDateTime takenAt) {
+        activeShiftRegistry.refreshWorkArea(shift);
+        LocalDateTime beforeUpdate = shift.getLastLocationCheck();
 
         // OPTIMIZATION: Only update coordinates if significant movement detected
-        boolean hasSignificantMovement = calculateSignificantMovement(
-            timeLog.getCurrentLatitude(),
-            timeLog.getCurrentLongitude(),
-            heartbeat.getLatitude(),
-            heartbeat.getLongitude()
+        double movedMeters = calculateMovementMeters(
+            shift.getCurrentLatitude(),
+            shift.getCurrentLongitude(),
+            latitude,
+            longitude
         );
+        boolean hasSignificantMovement = isSignificantMovement(movedMeters);
+
+        // Recent speed feeds the adaptive heartbeat interval
+        if (hasSignificantMovement && beforeUpdate != null && Double.isFinite(movedMeters)) {
+            long elapsedSeconds = Math.max(1, Duration.between(beforeUpdate, takenAt).getSeconds());
+            shift.setLastSpeedMetersPerSecond(movedMeters / elapsedSeconds);
+        } else {
+            shift.setLastSpeedMetersPerSecond(0);
+        }
 
         boolean isStaleLocation = beforeUpdate == null ||
-                                  beforeUpdate.isBefore(LocalDateTime.now().minusMinutes(5));
+                                  beforeUpdate.isBefore(takenAt.minusMinutes(5));
 
         if (hasSignificantMovement || isStaleLocation) {
             // Update full location data
-            timeLog.setCurrentLatitude(heartbeat.getLatitude());
-            timeLog.setCurrentLongitude(heartbeat.getLongitude());
-            timeLog.setLastLocationCheck(LocalDateTime.now());
-
-            logger.info("Updated location for shift {} (movement detected)", timeLog.getId());
+            shift.setCurrentLatitude(latitude);
+            shift.setCurrentLongitude(longitude);
+            logger.debug("Updated location for shift {} (movement detected)", shift.getTimeLogId());
         } else {
             // Just refresh timestamp - employee hasn't moved significantly
-            timeLog.setLastLocationCheck(LocalDateTime.now());
-            logger.debug("Refreshed timestamp for shift {} (no significant movement)", timeLog.getId());
+            logger.debug("Refreshed timestamp for shift {} (no significant movement)", shift.getTimeLogId());
         }
+        shift.setLastLocationCheck(takenAt);
+        locationTrackService.append(shift.getTimeLogId(), latitude, longitude, takenAt);
 
         // REAL-TIME GEOFENCE CHECKING
-        WorkArea workArea = timeLog.getWorkArea();
-        if (workArea != null) {
-            checkGeofenceViolationRealtime(timeLog, workArea, heartbeat.getLatitude(), heartbeat.getLongitude());
-        }
+        HeartbeatOutcome outcome = shift.hasWorkArea()
+                ? checkGeofenceViolationRealtime(shift, latitude, longitude, takenAt)
+                : HeartbeatOutcome.RECORDED;
 
-        timeLogRepository.save(timeLog);
+        activeShiftRegistry.markDirty(shift);
 
-        logger.info("Heartbeat processed for shift ID {} - Previous check: {}, New check: {}",
-                timeLog.getId(), beforeUpdate, timeLog.getLastLocationCheck());
+        logger.debug("Heartbeat processed for shift ID {} - Previous check: {}, New check: {}",
+                shift.getTimeLogId(), beforeUpdate, takenAt);
+        return outcome;
     }
 
-    private void checkGeofenceViolationRealtime(TimeLog timeLog, WorkArea workArea, Double latitude, Double longitude) {
+    /**
+     * Apply the real-time geofence rules to the shift state.
+     */
+    private HeartbeatOutcome checkGeofenceViolationRealtime(ActiveShiftState shift, Double latitude, Double longitude,
+            LocalDateTime takenAt) {
         // Calculate distance from work area
-        double distance = workAreaService.calculateDistance(
-                workArea.getLatitude(),
-                workArea.getLongitude(),
-                latitude,
-                longitude
-        );
+        GeofenceGeometry geofence = shift.getGeofence();
+        double distance = geofence.distanceMeters(latitude, longitude);
 
-        boolean outsideGeofence = distance > workArea.getRadiusMeters();
-        int currentViolations = timeLog.getViolationCount() != null ? timeLog.getViolationCount() : 0;
+        shift.setLastDistanceMeters(distance);
+        boolean outsideGeofence = distance > geofence.allowedDistanceMeters();
+        int currentViolations = shift.getViolationCount();
 
         if (outsideGeofence) {
             // User is outside geofence
             if (currentViolations == 0) {
                 // First violation - increment count and log warning
-                timeLog.setViolationCount(1);
-                timeLog.setFirstViolationTime(LocalDateTime.now());
+                shift.setViolationCount(1);
+                shift.setFirstViolationTime(takenAt);
                 logger.warn("REAL-TIME: First geofence violation for user {} - Distance: {}m (limit: {}m)",
-                        timeLog.getUser().getEmail(), Math.round(distance), Math.round(workArea.getRadiusMeters()));
+                        shift.getUserEmail(), Math.round(distance), Math.round(geofence.allowedDistanceMeters()));
+                return HeartbeatOutcome.VIOLATION_STARTED;
             } else if (currentViolations == 1) {
                 // Check if violation has been sustained for grace period (3 minutes)
                 // Increased from 2 to 3 to account for brief tab suspensions on mobile
-                LocalDateTime firstViolationTime = timeLog.getFirstViolationTime();
+                LocalDateTime firstViolationTime = shift.getFirstViolationTime();
                 if (firstViolationTime == null) {
-                    firstViolationTime = LocalDateTime.now();
-                    timeLog.setFirstViolationTime(firstViolationTime);
+                    firstViolationTime = takenAt;
+                    shift.setFirstViolationTime(firstViolationTime);
                 }
 
-                long minutesSinceFirstViolation = Duration.between(firstViolationTime, LocalDateTime.now()).toMinutes();
+                long minutesSinceFirstViolation = Duration.between(firstViolationTime, takenAt).toMinutes();
 
                 if (minutesSinceFirstViolation >= 3) {
                     // Grace period elapsed - auto clock out
-                    LocalDateTime detectionTime = LocalDateTime.now();
                     String reason = String.format("Remained outside work area for %d minutes (%.0f meters away)",
                             minutesSinceFirstViolation, distance);
 
                     logger.warn("REAL-TIME: Second geofence violation for user {} - AUTO CLOCK OUT. Reason: {}",
-                            timeLog.getUser().getEmail(), reason);
-
-                    // Auto clock out
-                    timeLog.setEndTime(detectionTime);
-                    timeLog.setIsActiveShift(false);
-                    timeLog.setAutoClockedOut(true);
-                    timeLog.setAutoClockoutReason(reason);
-                    timeLog.setViolationCount(2);
-
-                    // Calculate hours worked
-                    long durationMillis = Duration.between(timeLog.getStartTime(), detectionTime).toMillis();
-                    double hours = durationMillis / (1000.0 * 60 * 60);
-                    timeLog.setHours(hours);
-
-                    logger.info("REAL-TIME: Auto clocked out user {} at {} - Duration: {} hours",
-                            timeLog.getUser().getEmail(), detectionTime, hours);
+                            shift.getUserEmail(), reason);
+
+                    shift.setViolationCount(2);
+                    shift.setAutoClockoutReason(reason);
+                    return HeartbeatOutcome.AUTO_CLOCKED_OUT;
                 } else {
                     logger.debug("REAL-TIME: User {} still outside geofence but within grace period ({} min elapsed)",
-                            timeLog.getUser().getEmail(), minutesSinceFirstViolation);
+                            shift.getUserEmail(), minutesSinceFirstViolation);
                 }
             }
         } else {
             // User is back inside geofence - reset violations if any
             if (currentViolations > 0) {
                 logger.info("REAL-TIME: User {} returned to compliance, resetting violations",
-                        timeLog.getUser().getEmail());
-                timeLog.setViolationCount(0);
-                timeLog.setFirstViolationTime(null);
+                        shift.getUserEmail());
+                shift.setViolationCount(0);
+                shift.setFirstViolationTime(null);
+                return HeartbeatOutcome.RETURNED_TO_COMPLIANCE;
+            }
+        }
+        return HeartbeatOutcome.RECORDED;
+    }
+
+    private void publishAlert(ActiveShiftState shift, HeartbeatOutcome outcome, LocalDateTime at) {
+        if (outcome == HeartbeatOutcome.VIOLATION_STARTED) {
+            String message;
+            synchronized (shift) {
+                // The work area may have been deleted since the heartbeat was evaluated
+                String distance = shift.getGeofence() != null
+                        ? shift.getGeofence().describeDistance(shift.getLastDistanceMeters())
+                        : String.format("%.0f meters away", shift.getLastDistanceMeters());
+                message = "Warning: Outside work area (" + distance
+                        + "). Please return to work area immediately or you will be automatically clocked out.";
             }
+            eventPublisher.publishEvent(new ShiftAlertEvent(shift.getUserId(), shift.getTimeLogId(), null,
+                    ShiftAlertEvent.WARNING, message, at));
+        } else if (outcome == HeartbeatOutcome.AUTO_CLOCKED_OUT) {
+            eventPublisher.publishEvent(new ShiftAlertEvent(shift.getUserId(), shift.getTimeLogId(), null,
+                    ShiftAlertEvent.AUTO_CLOCKOUT,
+                    "You have been automatically clocked out. Reason: " + shift.getAutoClockoutReason(), at));
         }
     }
 
+    // Auto clock-out is written through immediately rather than waiting for the flush
+    // The shift leaves the registry once the clock-out is committed (at once on the socket path,
+    // which has no transaction); until then it refuses further heartbeats
+    private void persistAutoClockOut(ActiveShiftState shift, LocalDateTime detectionTime) {
+        synchronized (shift) {
+            shift.setClosed(true);
+        }
+
+        Optional<TimeLog> timeLogOpt;
+        try {
+            timeLogOpt = timeLogRepository.findById(shift.getTimeLogId());
+        } catch (RuntimeException e) {
+            synchronized (shift) {
+                shift.setClosed(false);
+            }
+            throw e;
+        }
+        if (timeLogOpt.isEmpty() || !Boolean.TRUE.equals(timeLogOpt.get().getIsActiveShift())) {
+            logger.warn("REAL-TIME: Shift {} was already closed before auto clock out", shift.getTimeLogId());
+            activeShiftRegistry.remove(shift.getUserId(), shift.getTimeLogId());
+            deadlineScheduler.cancel(shift.getTimeLogId());
+            return;
+        }
+
+        TimeLog timeLog = timeLogOpt.get();
+        synchronized (shift) {
+            shift.applyTo(timeLog);
+            timeLog.setAutoClockoutReason(shift.getAutoClockoutReason());
+        }
+
+        // Auto clock out
+        timeLog.setEndTime(detectionTime);
+        timeLog.setIsActiveShift(false);
+        timeLog.setAutoClockedOut(true);
+
+        // Calculate hours worked
+        long durationMillis = Duration.between(timeLog.getStartTime(), detectionTime).toMillis();
+        double hours = durationMillis / (1000.0 * 60 * 60);
+        timeLog.setHours(hours);
+
+        try {
+            timeLogRepository.save(timeLog);
+        } catch (RuntimeException e) {
+            synchronized (shift) {
+                shift.setClosed(false);
+            }
+            throw e;
+        }
+        activeShiftRegistry.removeAfterCommit(shift, () -> deadlineScheduler.cancel(shift.getTimeLogId()));
+        locationTrackService.close(timeLog.getId());
+
+        logger.info("REAL-TIME: Auto clocked out user {} at {} - Duration: {} hours",
+                shift.getUserEmail(), detectionTime, hours);
+    }
+
     @Transactional
     public TimeLog endActiveShift() {
         User user = getAuthenticatedUser();
@@ -389,6 +682,17 @@ public class TimeLogService {
 
         TimeLog timeLog = activeShiftOpt.get();
 
+        // Carry over heartbeat state that hasn't been flushed yet
+        ActiveShiftState shift = activeShiftRegistry.get(user.getId());
+        if (shift != null && shift.getTimeLogId().equals(timeLog.getId())) {
+            synchronized (shift) {
+                shift.applyTo(timeLog);
+            }
+            activeShiftRegistry.removeAfterCommit(shift, () -> deadlineScheduler.cancel(timeLog.getId()));
+        } else {
+            deadlineScheduler.cancel(timeLog.getId());
+        }
+
         // Mark shift as ended
         LocalDateTime endTime = LocalDateTime.now();
         timeLog.setEndTime(endTime);
@@ -400,6 +704,7 @@ public class TimeLogService {
         timeLog.setHours(hours);
 
         TimeLog saved = timeLogRepository.save(timeLog);
+        locationTrackService.close(saved.getId());
         logger.info("Ended shift {} for user {} - Duration: {} hours",
                 saved.getId(), user.getEmail(), hours);
 
@@ -411,15 +716,17 @@ public class TimeLogService {
         return timeLogRepository.findByUserAndIsActiveShiftTrue(user).orElse(null);
     }
 
-    private boolean calculateSignificantMovement(Double lat1, Double lon1, Double lat2, Double lon2) {
+    private double calculateMovementMeters(Double lat1, Double lon1, Double lat2, Double lon2) {
         // If no previous location, consider it significant
         if (lat1 == null || lon1 == null) {
-            return true;
+            return Double.POSITIVE_INFINITY;
         }
 
-        // Use existing WorkAreaService distance calculation
-        double distanceMeters = workAreaService.calculateDistance(lat1, lon1, lat2, lon2);
+        // Heartbeat-to-heartbeat hops are short, so the flat approximation is plenty for a 10m threshold
+        return workAreaService.calculateApproximateDistance(lat1, lon1, lat2, lon2);
+    }
 
+    private boolean isSignificantMovement(double distanceMeters) {
         // Consider movement significant if >10 meters
         // This filters out GPS jitter for stationary employees
         return distanceMeters > 10.0;
@@ -0,0 +1,9 @@
+package com.example.Mind_Forge.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * One recorded position of a shift's location track.
+ */
+public record TrackPoint(double latitude, double longitude, LocalDateTime timestamp) {
+}
@@ -0,0 +1,169 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.repository.NotificationCounterRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unread notification count per user, answered from memory so the notification badge
+ * doesn't run a COUNT query on every request.
+ *
+ * Counts live in a ConcurrentHashMap (updates for different users don't contend) and are
+ * loaded from notification_unread_counters the first time a user asks. Creating a notification
+ * increments the count, reading one decrements it; the same deltas are queued and written to
+ * the persisted counters in one batch on the next flush. {@link #reconcile()} recomputes the
+ * persisted counters from the notifications table and refreshes the cached ones, correcting
+ * any drift - including notifications created or read through another instance.
+ */
+@Service
+public class UnreadNotificationCounters {
+
+    private final NotificationCounterRepository counterRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, AtomicInteger> countsByUserId = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> pendingDeltas = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter correctedCounter;
+    private final Timer reconcileTimer;
+
+    private static final Logger log = LoggerFactory.getLogger(UnreadNotificationCounters.class);
+
+    public UnreadNotificationCounters(NotificationCounterRepository counterRepository,
+            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.counterRepository = counterRepository;
+        this.transactionTemplate = transactionTemplate;
+
+        Gauge.builder("notifications.counters.cached", countsByUserId, Map::size)
+                .description("Users whose unread count is held in memory")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("notifications.counters.lookups").tag("result", "hit")
+                .description("Unread count lookups").register(meterRegistry);
+        this.missCounter = Counter.builder("notifications.counters.lookups").tag("result", "miss")
+                .description("Unread count lookups").register(meterRegistry);
+        this.correctedCounter = Counter.builder("notifications.counters.corrected")
+                .description("Cached unread counts changed by reconciliation")
+                .register(meterRegistry);
+        this.reconcileTimer = Timer.builder("notifications.counters.reconcile")
+                .description("Time to recompute unread counters from the notifications table")
+                .register(meterRegistry);
+    }
+
+    public int getUnreadCount(Long userId) {
+        AtomicInteger count = countsByUserId.get(userId);
+        if (count != null) {
+            hitCounter.increment();
+            return count.get();
+        }
+
+        missCounter.increment();
+        AtomicInteger loaded = new AtomicInteger(load(userId));
+        AtomicInteger existing = countsByUserId.putIfAbsent(userId, loaded);
+        return (existing != null ? existing : loaded).get();
+    }
+
+    // Persisted notifications only - real-time alerts have no row to be read later
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShiftAlert(ShiftAlertEvent event) {
+        if (event.notificationId() != null) {
+            adjust(event.userId(), 1);
+        }
+    }
+
+    public void notificationsRead(Long userId, int count) {
+        if (count > 0) {
+            adjust(userId, -count);
+        }
+    }
+
+    /**
+     * Write the queued deltas to the persisted counters as one batch.
+     */
+    public void flush() {
+        Map<Long, Integer> deltas = drainPendingDeltas();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            counterRepository.applyDeltas(deltas);
+        } catch (RuntimeException e) {
+            // Keep them for the next flush
+            deltas.forEach((userId, delta) -> pendingDeltas.merge(userId, delta, Integer::sum));
+            throw e;
+        }
+    }
+
+    /**
+     * Recompute the persisted counters from the notifications table and refresh the cached counts.
+     */
+    public void reconcile() {
+        Timer.Sample sample = Timer.start();
+        flush();
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> counterRepository.reconcile(now));
+
+        List<Long> cachedUserIds = new ArrayList<>(countsByUserId.keySet());
+        Map<Long, Integer> persisted = counterRepository.findUnreadCounts(cachedUserIds);
+        int corrected = 0;
+        for (Long userId : cachedUserIds) {
+            AtomicInteger count = countsByUserId.get(userId);
+            if (count == null) {
+                continue;
+            }
+            int actual = persisted.getOrDefault(userId, 0) + pendingDeltas.getOrDefault(userId, 0);
+            if (count.getAndSet(Math.max(0, actual)) != Math.max(0, actual)) {
+                corrected++;
+            }
+        }
+        correctedCounter.increment(corrected);
+
+        long elapsedNanos = sample.stop(reconcileTimer);
+        log.info("Reconciled unread notification counters in {} ms ({} cached, {} corrected)",
+                elapsedNanos / 1_000_000, cachedUserIds.size(), corrected);
+    }
+
+    private void adjust(Long userId, int delta) {
+        AtomicInteger count = countsByUserId.get(userId);
+        if (count != null) {
+            count.updateAndGet(current -> Math.max(0, current + delta));
+        }
+        pendingDeltas.merge(userId, delta, Integer::sum);
+    }
+
+    private int load(Long userId) {
+        Integer persisted = counterRepository.findUnreadCount(userId);
+        if (persisted != null) {
+            return Math.max(0, persisted + pendingDeltas.getOrDefault(userId, 0));
+        }
+        // No counter row yet - the count taken now already includes any queued deltas
+        pendingDeltas.remove(userId);
+        return counterRepository.initializeFromNotifications(userId, LocalDateTime.now());
+    }
+
+    private Map<Long, Integer> drainPendingDeltas() {
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (Long userId : new ArrayList<>(pendingDeltas.keySet())) {
+            Integer delta = pendingDeltas.remove(userId);
+            if (delta != null && delta != 0) {
+                deltas.put(userId, delta);
+            }
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.Mind_Forge.service;
+
+import com.example.Mind_Forge.model.WorkArea;
+import com.example.Mind_Forge.repository.WorkAreaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-company snapshot of work area geometry, so clock-ins and geofence checks don't go back
+ * to the database for areas that almost never change.
+ *
+ * Each company has a version counter that createWorkArea/updateWorkArea/deleteWorkArea bump.
+ * A snapshot remembers the version it was loaded at and is reloaded when that no longer
+ * matches. The version is read before loading, so a change racing with a load leaves the
+ * loaded snapshot already stale. Inside a transaction the version is bumped again after
+ * commit, so a load that read the pre-commit rows can't survive either. The counter is local
+ * to the instance, so snapshots are also reloaded once they are older than
+ * workarea.cache.ttl-ms - that bounds how long a change made on another instance goes unseen.
+ *
+ * Snapshots are immutable. Active areas are also bucketed on a lat/lon grid by the cells
+ * their bounding box covers, so "which sites are near this point" only looks at sites
+ * sharing a cell with the query.
+ */
+@Component
+public class WorkAreaGeometryCache {
+
+    private static final double METERS_PER_DEGREE_LATITUDE = 111_320;
+
+    private final WorkAreaRepository workAreaRepository;
+    private final double cellDegrees;
+    private final long ttlNanos;
+    private final Map<Long, AtomicLong> versionsByCompanyId = new ConcurrentHashMap<>();
+    private final Map<Long, CompanySnapshot> snapshotsByCompanyId = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    private static final Logger log = LoggerFactory.getLogger(WorkAreaGeometryCache.class);
+
+    public WorkAreaGeometryCache(WorkAreaRepository workAreaRepository, MeterRegistry meterRegistry,
+            @Value("${workarea.index.cell-degrees:0.01}") double cellDegrees,
+            @Value("${workarea.cache.ttl-ms:30000}") long ttlMillis) {
+        this.workAreaRepository = workAreaRepository;
+        this.cellDegrees = cellDegrees;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+
+        this.hits = Counter.builder("workarea.cache.hits")
+                .description("Work area lookups served from a current snapshot")
+                .register(meterRegistry);
+        this.misses = Counter.builder("workarea.cache.misses")
+                .description("Work area lookups that had to load a company snapshot")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("workarea.cache.invalidations")
+                .register(meterRegistry);
+        Gauge.builder("workarea.cache.companies", snapshotsByCompanyId, Map::size)
+                .description("Companies with a cached work area snapshot")
+                .register(meterRegistry);
+    }
+
+    public CompanySnapshot snapshot(Long companyId) {
+        long version = versionsByCompanyId.computeIfAbsent(companyId, id -> new AtomicLong()).get();
+        CompanySnapshot snapshot = snapshotsByCompanyId.get(companyId);
+        if (snapshot != null && snapshot.version == version
+                && System.nanoTime() - snapshot.loadedAtNanos < ttlNanos) {
+            hits.increment();
+            return snapshot;
+        }
+
+        misses.increment();
+        CompanySnapshot loaded = load(companyId, version);
+        // A slower concurrent load of an older version must not replace a newer snapshot
+        snapshotsByCompanyId.merge(companyId, loaded, (current, candidate) ->
+                candidate.version > current.version || (candidate.version == current.version
+                        && candidate.loadedAtNanos - current.loadedAtNanos >= 0) ? candidate : current);
+        return loaded;
+    }
+
+    /**
+     * Mark the company's snapshot stale - call whenever one of its work areas changes.
+     */
+    public void invalidate(Long companyId) {
+        bump(companyId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(companyId);
+                }
+            });
+        }
+    }
+
+    private void bump(Long companyId) {
+        versionsByCompanyId.computeIfAbsent(companyId, id -> new AtomicLong()).incrementAndGet();
+        invalidations.increment();
+    }
+
+    private CompanySnapshot load(Long companyId, long version) {
+        // Taken before reading, so the snapshot's age covers the whole read
+        long loadedAtNanos = System.nanoTime();
+        Map<Long, CachedWorkArea> areas = new HashMap<>();
+        for (WorkArea workArea : workAreaRepository.findByCompanyId(companyId)) {
+            areas.put(workArea.getId(), new CachedWorkArea(
+                    workArea.getId(),
+                    workArea.getName(),
+                    workArea.getAddress(),
+                    workArea.getLatitude(),
+                    workArea.getLongitude(),
+                    workArea.getRadiusMeters(),
+                    Boolean.TRUE.equals(workArea.getActive()),
+                    GeofenceGeometry.of(workArea)));
+        }
+
+        Map<Long, List<CachedWorkArea>> cells = new HashMap<>();
+        for (CachedWorkArea area : areas.values()) {
+            if (!area.active()) {
+                continue;
+            }
+            GeofenceGeometry geofence = area.geofence();
+            for (int r = row(geofence.getMinLatitude()); r <= row(geofence.getMaxLatitude()); r++) {
+                for (int c = col(geofence.getMinLongitude()); c <= col(geofence.getMaxLongitude()); c++) {
+                    cells.computeIfAbsent(cellKey(r, c), k -> new ArrayList<>()).add(area);
+                }
+            }
+        }
+
+        log.debug("Loaded {} work areas for company {} (version {})", areas.size(), companyId, version);
+        return new CompanySnapshot(version, loadedAtNanos, Map.copyOf(areas), cells);
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int col(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /**
+     * Immutable view of one company's work areas at a given version.
+     */
+    public final class CompanySnapshot {
+        private final long version;
+        private final long loadedAtNanos;
+        private final Map<Long, CachedWorkArea> areasById;
+        private final Map<Long, List<CachedWorkArea>> cells;
+
+        private CompanySnapshot(long version, long loadedAtNanos, Map<Long, CachedWorkArea> areasById,
+                Map<Long, List<CachedWorkArea>> cells) {
+            this.version = version;
+            this.loadedAtNanos = loadedAtNanos;
+            this.areasById = areasById;
+            this.cells = cells;
+        }
+
+        public Optional<CachedWorkArea> get(Long workAreaId) {
+            return Optional.ofNullable(areasById.get(workAreaId));
+        }
+
+        /**
+         * Active work areas whose geofence could come within searchRadiusMeters of the point
+         * (0 = could contain the point). The caller does the exact distance check.
+         */
+        public List<CachedWorkArea> candidates(double latitude, double longitude, double searchRadiusMeters) {
+            if (cells.isEmpty()) {
+                return List.of();
+            }
+
+            double latPad = searchRadiusMeters / METERS_PER_DEGREE_LATITUDE;
+            double lonPad = searchRadiusMeters / (METERS_PER_DEGREE_LATITUDE
+                    * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+            int minRow = row(latitude - latPad);
+            int maxRow = row(latitude + latPad);
+            int minCol = col(longitude - lonPad);
+            int maxCol = col(longitude + lonPad);
+
+            // An area spanning several query cells must only be returned once
+            Map<Long, CachedWorkArea> found = new LinkedHashMap<>();
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minCol; c <= maxCol; c++) {
+                    List<CachedWorkArea> cell = cells.get(cellKey(r, c));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (CachedWorkArea area : cell) {
+                        if (area.mayReach(latitude, longitude, latPad, lonPad)) {
+                            found.putIfAbsent(area.id(), area);
+                        }
+                    }
+                }
+            }
+            return new ArrayList<>(found.values());
+        }
+    }
+
+    /**
+     * Immutable copy of a work area with its compiled geofence.
+     */
+    public record CachedWorkArea(Long id, String name, String address, double latitude, double longitude,
+            double radiusMeters, boolean active, GeofenceGeometry geofence) {
+
+        boolean mayReach(double pointLatitude, double pointLongitude, double latPad, double lonPad) {
+            return pointLatitude + latPad >= geofence.getMinLatitude()
+                    && pointLatitude - latPad <= geofence.getMaxLatitude()
+                    && pointLongitude + lonPad >= geofence.getMinLongitude()
+                    && pointLongitude - lonPad <= geofence.getMaxLongitude();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.example.Mind_Forge.model.WorkArea;
 import com.example.Mind_Forge.repository.TimeLogRepository;
 import com.example.Mind_Forge.repository.WorkAreaRepository;
 import com.example.Mind_Forge.repository.UserRepository;
+import com.example.Mind_Forge.service.WorkAreaGeometryCache.CachedWorkArea;
 
 import jakarta.transaction.Transactional;
 
@@ -24,14 +25,17 @@ public class WorkAreaService {
     private final WorkAreaRepository workAreaRepository;
     private final UserRepository userRepository;
     private final TimeLogRepository timeLogRepository;
+    private final WorkAreaGeometryCache geometryCache;
 
     private static final Logger log = LoggerFactory.getLogger(WorkAreaService.class);
-    private static final double EARTH_RADIUS_METERS = 6371000; // Earth's radius in meters
+    private static final double MAX_NEARBY_SEARCH_METERS = 50000;
 
-    public WorkAreaService(WorkAreaRepository workAreaRepository, UserRepository userRepository, TimeLogRepository timeLogRepository) {
+    public WorkAreaService(WorkAreaRepository workAreaRepository, UserRepository userRepository,
+            TimeLogRepository timeLogRepository, WorkAreaGeometryCache geometryCache) {
         this.workAreaRepository = workAreaRepository;
         this.userRepository = userRepository;
         this.timeLogRepository = timeLogRepository;
+        this.geometryCache = geometryCache;
     }
 
     /**
@@ -47,12 +51,22 @@ public class WorkAreaService {
                 .orElseThrow(() -> new RuntimeException("Authenticated user not found"));
     }
 
+    // Read paths only need the user's id, role and company id - the JWT filter already put
+    // the User in the security context, so skip another findByEmail
+    private User getAuthenticatedPrincipal() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (principal instanceof User user) {
+            return user;
+        }
+        return getAuthenticatedUser();
+    }
+
     /**
      * Create a new work area (executives only)
      */
     @Transactional
     public WorkArea createWorkArea(String name, String address, Double latitude, Double longitude,
-            Double radiusMeters) {
+            Double radiusMeters, List<List<Double>> polygon) {
         User user = getAuthenticatedUser();
 
         if (user.getCompany() == null) {
@@ -65,8 +79,13 @@ public class WorkAreaService {
 
         WorkArea workArea = new WorkArea(name, latitude, longitude, radiusMeters, user.getCompany());
         workArea.setAddress(address);
+        if (polygon != null && !polygon.isEmpty()) {
+            workArea.setPolygon(encodePolygon(polygon));
+        }
+        applyGeometry(workArea);
 
         WorkArea saved = workAreaRepository.save(workArea);
+        geometryCache.invalidate(user.getCompany().getId());
         log.info("Created work area '{}' for company {}", name, user.getCompany().getName());
 
         return saved;
@@ -102,7 +121,7 @@ public class WorkAreaService {
      * Get a specific work area by ID (ensures it belongs to user's company)
      */
     public WorkArea getWorkAreaById(Long id) {
-        User user = getAuthenticatedUser();
+        User user = getAuthenticatedPrincipal();
 
         if (user.getCompany() == null) {
             throw new IllegalStateException("User must belong to a company");
@@ -117,7 +136,7 @@ public class WorkAreaService {
      */
     @Transactional
     public WorkArea updateWorkArea(Long id, String name, String address, Double latitude, Double longitude,
-            Double radiusMeters, Boolean active) {
+            Double radiusMeters, List<List<Double>> polygon, Boolean active) {
         User user = getAuthenticatedUser();
 
         if (!"executive".equals(user.getRole())) {
@@ -141,11 +160,18 @@ public class WorkAreaService {
         if (radiusMeters != null) {
             existing.setRadiusMeters(radiusMeters);
         }
+        if (polygon != null) {
+            // An empty list turns a polygon back into a circle
+            existing.setPolygon(polygon.isEmpty() ? null : encodePolygon(polygon));
+        }
         if (active != null) {
             existing.setActive(active);
         }
+        applyGeometry(existing);
 
         WorkArea updated = workAreaRepository.save(existing);
+        // Active shifts pick the new geometry up from the cache once this commits
+        geometryCache.invalidate(updated.getCompany().getId());
         log.info("Updated work area '{}' (ID: {})", updated.getName(), id);
 
         return updated;
@@ -164,6 +190,7 @@ public class WorkAreaService {
 
         WorkArea workArea = getWorkAreaById(id);
         String workAreaName = workArea.getName();
+        Long companyId = workArea.getCompany().getId();
 
         // First, nullify the workArea reference in any TimeLogs that reference it
         List<TimeLog> relatedTimeLogs = timeLogRepository.findByWorkArea(workArea);
@@ -177,10 +204,86 @@ public class WorkAreaService {
 
         // Now permanently delete from database
         workAreaRepository.delete(workArea);
+        geometryCache.invalidate(companyId);
 
         log.info("Permanently deleted work area '{}' (ID: {})", workAreaName, id);
     }
 
+    /**
+     * Active work areas of the user's company within searchRadiusMeters of their geofence
+     * edge, best match first (deepest inside, then nearest outside). A search radius of 0 returns only the areas containing the point.
+     */
+    public List<NearbyWorkArea> findNearbyWorkAreas(double latitude, double longitude, double searchRadiusMeters) {
+        User user = getAuthenticatedPrincipal();
+
+        if (user.getCompany() == null) {
+            throw new IllegalStateException("User must belong to a company");
+        }
+        if (searchRadiusMeters < 0 || searchRadiusMeters > MAX_NEARBY_SEARCH_METERS) {
+            throw new IllegalArgumentException(
+                    String.format("Search radius must be between 0 and %.0f meters", MAX_NEARBY_SEARCH_METERS));
+        }
+
+        return findNearbyWorkAreas(user.getCompany(), latitude, longitude, searchRadiusMeters);
+    }
+
+    /**
+     * The active work area of the company that the point is deepest inside, if any
+     */
+    public Optional<NearbyWorkArea> findContainingWorkArea(Company company, double latitude, double longitude) {
+        return findNearbyWorkAreas(company, latitude, longitude, 0).stream().findFirst();
+    }
+
+    private List<NearbyWorkArea> findNearbyWorkAreas(Company company, double latitude, double longitude,
+            double searchRadiusMeters) {
+        List<NearbyWorkArea> nearby = new ArrayList<>();
+        for (CachedWorkArea area : geometryCache.snapshot(company.getId())
+                .candidates(latitude, longitude, searchRadiusMeters)) {
+            NearbyWorkArea candidate = new NearbyWorkArea(area, area.geofence().distanceMeters(latitude, longitude));
+            if (candidate.marginMeters() >= -searchRadiusMeters) {
+                nearby.add(candidate);
+            }
+        }
+        nearby.sort(Comparator.comparingDouble(NearbyWorkArea::marginMeters).reversed());
+        return nearby;
+    }
+
+    // Polygon work areas take their centre, covering radius and bounding box from the polygon
+    private void applyGeometry(WorkArea workArea) {
+        if (workArea.getPolygon() == null && (workArea.getLatitude() == null || workArea.getLongitude() == null
+                || workArea.getRadiusMeters() == null)) {
+            throw new IllegalArgumentException("A work area needs either a polygon or a latitude, longitude and radius");
+        }
+
+        GeofenceGeometry geofence = GeofenceGeometry.of(workArea);
+        if (geofence.isPolygon()) {
+            workArea.setLatitude(geofence.getCenterLatitude());
+            workArea.setLongitude(geofence.getCenterLongitude());
+            workArea.setRadiusMeters(geofence.getRadiusMeters());
+        }
+        workArea.setMinLatitude(geofence.getMinLatitude());
+        workArea.setMaxLatitude(geofence.getMaxLatitude());
+        workArea.setMinLongitude(geofence.getMinLongitude());
+        workArea.setMaxLongitude(geofence.getMaxLongitude());
+    }
+
+    private String encodePolygon(List<List<Double>> polygon) {
+        List<double[]> vertices = new ArrayList<>();
+        for (List<Double> point : polygon) {
+            if (point == null || point.size() != 2 || point.get(0) == null || point.get(1) == null) {
+                throw new IllegalArgumentException("Polygon points must be [latitude, longitude] pairs");
+            }
+            vertices.add(new double[] { point.get(0), point.get(1) });
+        }
+        // Stored open - drop a closing point that repeats the first
+        if (vertices.size() > 1 && Arrays.equals(vertices.get(0), vertices.get(vertices.size() - 1))) {
+            vertices.remove(vertices.size() - 1);
+        }
+        // Validates the point count and ranges
+        GeofenceGeometry.polygon(vertices);
+        return GeofenceGeometry.formatVertices(vertices);
+    }
+
     /**
      * Calculate distance between two geographic coordinates using Haversine formula
      *
@@ -191,16 +294,61 @@ public class WorkAreaService {
      * @return Distance in meters
      */
     public double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
+        return GeofenceGeometry.haversineMeters(lat1, lon1, lat2, lon2);
+    }
 
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+    /**
+     * Cheaper flat-projection distance for short hops where ~0.01% error doesn't matter,
+     * e.g. filtering GPS jitter. Falls back to Haversine for long distances.
+     */
+    public double calculateApproximateDistance(double lat1, double lon1, double lat2, double lon2) {
+        return GeofenceGeometry.approximateDistanceMeters(lat1, lon1, lat2, lon2);
+    }
 
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    /**
+     * Evaluate many points against many circular work areas in one call, over parallel
+     * primitive arrays (no boxing, no per-point allocation). cos/sin of each area's latitude
+     * is computed once per call and containment is decided on squared distances, with
+     * Haversine only for points right at a boundary.
+     *
+     * @return for each point, the index of the area it is deepest inside (relative to the
+     *         area's radius), or -1 if it is inside none
+     */
+    public int[] findContainingAreas(double[] pointLatitudes, double[] pointLongitudes,
+            double[] areaLatitudes, double[] areaLongitudes, double[] areaRadiiMeters) {
+        if (pointLatitudes.length != pointLongitudes.length
+                || areaLatitudes.length != areaLongitudes.length || areaLatitudes.length != areaRadiiMeters.length) {
+            throw new IllegalArgumentException("Coordinate arrays must have matching lengths");
+        }
 
-        return EARTH_RADIUS_METERS * c;
+        int areaCount = areaLatitudes.length;
+        double[] cosLatitudes = new double[areaCount];
+        double[] sinLatitudes = new double[areaCount];
+        for (int a = 0; a < areaCount; a++) {
+            cosLatitudes[a] = Math.cos(Math.toRadians(areaLatitudes[a]));
+            sinLatitudes[a] = Math.sin(Math.toRadians(areaLatitudes[a]));
+        }
+
+        int[] containing = new int[pointLatitudes.length];
+        for (int p = 0; p < pointLatitudes.length; p++) {
+            int best = -1;
+            double bestRatio = Double.MAX_VALUE;
+            for (int a = 0; a < areaCount; a++) {
+                if (!GeofenceGeometry.circleContains(areaLatitudes[a], areaLongitudes[a], cosLatitudes[a],
+                        sinLatitudes[a], areaRadiiMeters[a], pointLatitudes[p], pointLongitudes[p])) {
+                    continue;
+                }
+                double ratio = GeofenceGeometry.planarDistanceSquared(areaLatitudes[a], areaLongitudes[a],
+                        cosLatitudes[a], sinLatitudes[a], pointLatitudes[p], pointLongitudes[p])
+                        / (areaRadiiMeters[a] * areaRadiiMeters[a]);
+                if (ratio < bestRatio) {
+                    bestRatio = ratio;
+                    best = a;
+                }
+            }
+            containing[p] = best;
+        }
+        return containing;
     }
 
     /**
@@ -212,42 +360,66 @@ public class WorkAreaService {
      * @return true if within geofence, false otherwise
      */
     public boolean isWithinGeofence(Long workAreaId, double currentLatitude, double currentLongitude) {
-        WorkArea workArea = getWorkAreaById(workAreaId);
+        CachedWorkArea workArea = getCachedWorkArea(requireCompany(getAuthenticatedPrincipal()), workAreaId);
 
-        if (!workArea.getActive()) {
+        if (!workArea.active()) {
             throw new IllegalStateException("Work area is not active");
         }
 
-        double distance = calculateDistance(
-                workArea.getLatitude(),
-                workArea.getLongitude(),
-                currentLatitude,
-                currentLongitude);
-
-        log.debug("Distance to work area '{}': {} meters (radius: {} meters)",
-                workArea.getName(), distance, workArea.getRadiusMeters());
-
-        return distance <= workArea.getRadiusMeters();
+        return workArea.geofence().contains(currentLatitude, currentLongitude);
     }
 
     /**
      * Validate geofence and throw exception if not within range
      */
     public void validateGeofence(Long workAreaId, double currentLatitude, double currentLongitude) {
-        WorkArea workArea = getWorkAreaById(workAreaId);
-
-        double distance = calculateDistance(
-                workArea.getLatitude(),
-                workArea.getLongitude(),
-                currentLatitude,
-                currentLongitude);
+        validateGeofence(requireCompany(getAuthenticatedPrincipal()), workAreaId, currentLatitude, currentLongitude);
+    }
 
-        if (distance > workArea.getRadiusMeters()) {
-            throw new SecurityException(
-                    String.format("You are %.0f meters away from '%s'. You must be within %.0f meters to clock in.",
-                            distance, workArea.getName(), workArea.getRadiusMeters()));
+    /**
+     * Validate geofence for a caller that already resolved the user's company. Served from the
+     * geometry cache - no database access unless the company's snapshot is stale.
+     *
+     * @return the validated work area
+     */
+    public CachedWorkArea validateGeofence(Company company, Long workAreaId, double currentLatitude,
+            double currentLongitude) {
+        CachedWorkArea workArea = getCachedWorkArea(company, workAreaId);
+        GeofenceGeometry geofence = workArea.geofence();
+
+        double distance = geofence.distanceMeters(currentLatitude, currentLongitude);
+
+        if (distance > geofence.allowedDistanceMeters()) {
+            throw new SecurityException(geofence.isPolygon()
+                    ? String.format("You are %.0f meters outside '%s'. You must be inside the work area to clock in.",
+                            distance, workArea.name())
+                    : String.format("You are %.0f meters away from '%s'. You must be within %.0f meters to clock in.",
+                            distance, workArea.name(), workArea.radiusMeters()));
         }
 
-        log.info("Geofence validation passed for work area '{}' (distance: {} meters)", workArea.getName(), distance);
+        log.info("Geofence validation passed for work area '{}' (distance: {} meters)", workArea.name(), distance);
+        return workArea;
+    }
+
+    /**
+     * A work area of the given company from the geometry cache
+     */
+    public CachedWorkArea getCachedWorkArea(Company company, Long workAreaId) {
+        return geometryCache.snapshot(company.getId()).get(workAreaId)
+                .orElseThrow(() -> new NoSuchElementException("Work area not found or access denied"));
+    }
+
+    /**
+     * Reference to a work area for setting associations, without loading it
+     */
+    public WorkArea getWorkAreaReference(Long workAreaId) {
+        return workAreaRepository.getReferenceById(workAreaId);
+    }
+
+    private Company requireCompany(User user) {
+        if (user.getCompany() == null) {
+            throw new IllegalStateException("User must belong to a company");
+        }
+        return user.getCompany();
     }
 }
@@ -0,0 +1,15 @@
+-- Migration: Append-only location track store
+-- Purpose: Keep shift location history as delta-encoded segments instead of one row per heartbeat
+
+CREATE TABLE IF NOT EXISTS location_track_segments (
+    id BIGSERIAL PRIMARY KEY,
+    time_log_id BIGINT NOT NULL,
+    segment_start TIMESTAMP NOT NULL,
+    segment_end TIMESTAMP NOT NULL,
+    point_count INTEGER NOT NULL,
+    encoded_points BYTEA NOT NULL
+);
+
+-- A shift's track is always read by time_log_id in time order
+CREATE INDEX IF NOT EXISTS idx_track_time_log_start
+    ON location_track_segments(time_log_id, segment_start);
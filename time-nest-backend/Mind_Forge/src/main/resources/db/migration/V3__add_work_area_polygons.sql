@@ -0,0 +1,9 @@
+-- Migration: Polygon work area geofences
+-- Purpose: Let a work area be an arbitrary polygon instead of a centre + radius circle,
+-- with its bounding box stored so it can be rejected cheaply
+
+ALTER TABLE work_areas ADD COLUMN IF NOT EXISTS polygon TEXT;
+ALTER TABLE work_areas ADD COLUMN IF NOT EXISTS min_latitude DOUBLE PRECISION;
+ALTER TABLE work_areas ADD COLUMN IF NOT EXISTS max_latitude DOUBLE PRECISION;
+ALTER TABLE work_areas ADD COLUMN IF NOT EXISTS min_longitude DOUBLE PRECISION;
+ALTER TABLE work_areas ADD COLUMN IF NOT EXISTS max_longitude DOUBLE PRECISION;
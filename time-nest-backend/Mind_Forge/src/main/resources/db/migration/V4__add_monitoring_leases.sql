@@ -0,0 +1,14 @@
+-- Migration: Lease-based partitioning of shift monitoring across app instances
+-- Purpose: Each company-id bucket is swept by exactly one live instance.
+-- Plain SQL so the same script also sets up an embedded database for tests.
+
+CREATE TABLE IF NOT EXISTS monitoring_instances (
+    instance_id VARCHAR(255) PRIMARY KEY,
+    last_seen TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS monitoring_partition_leases (
+    partition_id INTEGER PRIMARY KEY,
+    owner VARCHAR(255),
+    expires_at TIMESTAMP
+);
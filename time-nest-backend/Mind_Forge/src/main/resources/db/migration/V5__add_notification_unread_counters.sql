@@ -0,0 +1,17 @@
+-- Migration: Maintained unread-notification counters
+-- Purpose: The notification badge reads a per-user counter instead of running
+-- COUNT(*) over shift_violation_notifications on every request.
+
+CREATE TABLE IF NOT EXISTS notification_unread_counters (
+    user_id BIGINT PRIMARY KEY,
+    unread_count INTEGER NOT NULL DEFAULT 0,
+    reconciled_at TIMESTAMP
+);
+
+-- Seed from the current unread notifications
+INSERT INTO notification_unread_counters (user_id, unread_count, reconciled_at)
+SELECT user_id, COUNT(*), CURRENT_TIMESTAMP
+FROM shift_violation_notifications
+WHERE is_read = false
+GROUP BY user_id
+ON CONFLICT (user_id) DO NOTHING;
@@ -0,0 +1,7 @@
+-- Migration: Composite index for user-scoped notification queries
+-- Purpose: Serves the unread listing (user_id, is_read = false ORDER BY created_at),
+-- the stream replay and the set-based delivered/read updates without scanning
+-- other users' notifications.
+
+CREATE INDEX IF NOT EXISTS idx_notification_user_read_created
+    ON shift_violation_notifications(user_id, is_read, created_at);
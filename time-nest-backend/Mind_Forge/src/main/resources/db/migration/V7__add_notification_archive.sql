@@ -0,0 +1,26 @@
+-- Migration: Rolling archive for read shift notifications
+-- Purpose: The retention job moves read notifications older than
+-- notifications.retention.max-age-days here in small batches, keeping the live
+-- table (and every user-scoped query on it) small.
+
+CREATE TABLE IF NOT EXISTS shift_violation_notifications_archive (
+    id BIGINT PRIMARY KEY,
+    time_log_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    notification_type VARCHAR(255) NOT NULL,
+    message VARCHAR(500) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    is_read BOOLEAN,
+    is_delivered BOOLEAN,
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    distance_from_workarea DOUBLE PRECISION,
+    archived_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_archive_user_created
+    ON shift_violation_notifications_archive(user_id, created_at);
+
+-- Lets each retention batch find its oldest read rows without scanning unread ones
+CREATE INDEX IF NOT EXISTS idx_notification_read_created
+    ON shift_violation_notifications(created_at) WHERE is_read = true;
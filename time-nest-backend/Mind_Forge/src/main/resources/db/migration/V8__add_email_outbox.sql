@@ -0,0 +1,20 @@
+-- Migration: Transactional email outbox
+-- Purpose: Emails are written here in the same transaction as the change that
+-- triggers them and sent by background workers, so requests and monitoring
+-- transactions never wait on the email provider.
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    html_content TEXT NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    locked_until TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_next_attempt
+    ON email_outbox(status, next_attempt_at);
@@ -0,0 +1,17 @@
+-- Migration: Executive auto clock-out digest
+-- Purpose: With monitoring.executive-alerts.digest.enabled, auto clock-outs are
+-- collected here and sent to each company's executives as one email per window.
+
+CREATE TABLE IF NOT EXISTS executive_alert_digest_entries (
+    id BIGSERIAL PRIMARY KEY,
+    company_id BIGINT NOT NULL,
+    company_name VARCHAR(255),
+    employee_name VARCHAR(255),
+    employee_email VARCHAR(255),
+    work_area_name VARCHAR(255),
+    clockout_time TIMESTAMP NOT NULL,
+    reason VARCHAR(500),
+    hours DOUBLE PRECISION,
+    distance DOUBLE PRECISION,
+    created_at TIMESTAMP NOT NULL
+);
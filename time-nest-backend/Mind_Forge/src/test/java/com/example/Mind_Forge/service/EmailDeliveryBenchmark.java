@@ -0,0 +1,156 @@
+package com.example.Mind_Forge.service;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.example.Mind_Forge.config.EmailClientConfiguration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Email throughput of the registration, password reset and executive alert flows against
+ * StubEmailProvider, with provider latency and injected 429s / 5xx.
+ *
+ * Requests only write to the outbox, so provider trouble shows up as outbox backlog rather than
+ * slow requests. Each operation here is what an outbox worker does for one flow - render the
+ * template and make the provider call - with as many threads as the default email.outbox.workers,
+ * so the score is the rate at which the outbox can drain under those provider conditions.
+ * Failed sends count as operations; they would be retried later. Sends go through the production
+ * client and EmailProviderGuard settings, so at high fault rates the breaker opens and the score
+ * becomes the rate of sends turned away without reaching the provider.
+ *
+ * Not a unit test - run with:
+ * mvn test-compile exec:java -Dexec.mainClass=com.example.Mind_Forge.service.EmailDeliveryBenchmark -Dexec.classpathScope=test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(2)
+@Fork(1)
+public class EmailDeliveryBenchmark {
+
+    private static final int EXECUTIVES = 10;
+
+    @Param({"0", "100", "1000"})
+    public int latencyMs;
+
+    // none, or <status>@<percent of requests>
+    @Param({"none", "429@10", "503@50"})
+    public String fault;
+
+    private StubEmailProvider provider;
+    private EmailService emailService;
+    private EmailTemplates emailTemplates;
+    private List<String> executiveEmails;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        provider = new StubEmailProvider().withLatency(Duration.ofMillis(latencyMs));
+        if (!"none".equals(fault)) {
+            String[] parts = fault.split("@");
+            provider.withFailureRate(Integer.parseInt(parts[1]) / 100.0, Integer.parseInt(parts[0]));
+        }
+        // The production client and guard settings, so timeouts, the breaker and the bulkhead all take part
+        OkHttpClient httpClient = new EmailClientConfiguration()
+                .emailHttpClient(5000, 10000, 10000, 20000, 4, 300000);
+        EmailProviderGuard guard = new EmailProviderGuard(new SimpleMeterRegistry(), Clock.systemUTC(),
+                50, 20, 10, Duration.ofSeconds(30), 3, 4, 2000);
+        emailService = new EmailService("benchmark-key", "noreply@example.com", provider.getBaseUrl(),
+                httpClient, guard);
+        emailTemplates = new EmailTemplates();
+        executiveEmails = new ArrayList<>();
+        for (int i = 0; i < EXECUTIVES; i++) {
+            executiveEmails.add("executive" + i + "@example.com");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nProvider: %d requests, %d failed, %d emails accepted%n",
+                provider.getRequestCount(), provider.getFailureCount(), provider.getMessages().size());
+        provider.close();
+    }
+
+    @Benchmark
+    public boolean registration() {
+        String html = emailTemplates.verificationEmail("123456");
+        return send(() -> emailService.sendVerificationEmail("new.user@example.com", "Account Verification", html));
+    }
+
+    @Benchmark
+    public boolean passwordReset() {
+        String html = emailTemplates.passwordResetEmail(UUID.randomUUID().toString());
+        return send(() -> emailService.sendVerificationEmail("user@example.com", "Reset Your Timenest Password", html));
+    }
+
+    // One alert to every executive of the company in one batch request
+    @Benchmark
+    public boolean executiveAlert() {
+        String html = emailTemplates.executiveAlertEmail("Ann Lee", "ann@example.com", "Acme", "Yard",
+                LocalDateTime.now(), "Location signal remained unavailable after warning", 7.5, 0);
+        List<EmailMessage> messages = new ArrayList<>(EXECUTIVES);
+        for (String executive : executiveEmails) {
+            messages.add(new EmailMessage(executive, "Auto Clock-Out Alert: Ann Lee", html));
+        }
+        return send(() -> emailService.sendBatch(messages));
+    }
+
+    // The same fan-out as one request per executive, for comparison
+    @Benchmark
+    public int executiveAlertUnbatched() {
+        String html = emailTemplates.executiveAlertEmail("Ann Lee", "ann@example.com", "Acme", "Yard",
+                LocalDateTime.now(), "Location signal remained unavailable after warning", 7.5, 0);
+        int sent = 0;
+        for (String executive : executiveEmails) {
+            if (send(() -> emailService.sendVerificationEmail(executive, "Auto Clock-Out Alert: Ann Lee", html))) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    private static boolean send(ProviderCall call) {
+        try {
+            call.run();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private interface ProviderCall {
+        void run() throws IOException;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailDeliveryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
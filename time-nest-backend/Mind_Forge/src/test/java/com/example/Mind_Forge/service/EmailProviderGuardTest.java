@@ -0,0 +1,129 @@
+package com.example.Mind_Forge.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Circuit breaker transitions on a hand-advanced clock, and the bulkhead limit.
+ */
+class EmailProviderGuardTest {
+
+    private static final Duration OPEN = Duration.ofSeconds(30);
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private EmailProviderGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        meterRegistry = new SimpleMeterRegistry();
+        // Opens at 50% failures of the last 4 calls, two trial calls to close
+        guard = new EmailProviderGuard(meterRegistry, clock, 50, 4, 4, OPEN, 2, 1, 0);
+    }
+
+    @Test
+    void opensOnFailureRateAndFailsFast() throws IOException {
+        succeed();
+        succeed();
+        fail();
+        assertEquals(EmailProviderGuard.State.CLOSED, guard.getState());
+
+        fail();
+        assertEquals(EmailProviderGuard.State.OPEN, guard.getState());
+        assertFalse(guard.isCallPermitted());
+        assertThrows(EmailProviderUnavailableException.class, this::succeed);
+        assertEquals(1.0, meterRegistry.get("email.client.not-permitted").tag("reason", "circuit-open")
+                .counter().count());
+        assertEquals(1.0, meterRegistry.get("email.client.circuit.state").tag("state", "open").gauge().value());
+    }
+
+    @Test
+    void halfOpenClosesAfterTrialCallsSucceed() throws IOException {
+        openCircuit();
+
+        clock.advance(OPEN);
+        assertTrue(guard.isCallPermitted());
+        succeed();
+        assertEquals(EmailProviderGuard.State.HALF_OPEN, guard.getState());
+        succeed();
+        assertEquals(EmailProviderGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void halfOpenReopensOnFailure() throws IOException {
+        openCircuit();
+
+        clock.advance(OPEN);
+        succeed();
+        fail();
+        assertEquals(EmailProviderGuard.State.OPEN, guard.getState());
+        assertFalse(guard.isCallPermitted());
+    }
+
+    @Test
+    void rejectedRequestsDontCountAsProviderFailures() throws IOException {
+        for (int i = 0; i < 8; i++) {
+            assertThrows(EmailRejectedException.class, () -> guard.execute(() -> {
+                throw new EmailRejectedException(422, "Invalid `to` field");
+            }));
+        }
+        assertEquals(EmailProviderGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void bulkheadTurnsAwayCallsBeyondTheLimit() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> guard.execute(() -> {
+                inFlight.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            inFlight.await();
+
+            assertThrows(EmailProviderUnavailableException.class, this::succeed);
+            assertEquals(1.0, meterRegistry.get("email.client.not-permitted").tag("reason", "bulkhead-full")
+                    .counter().count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private void openCircuit() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        assertEquals(EmailProviderGuard.State.OPEN, guard.getState());
+    }
+
+    private void succeed() throws IOException {
+        guard.execute(() -> null);
+    }
+
+    private void fail() {
+        assertThrows(IOException.class, () -> guard.execute(() -> {
+            throw new IOException("timeout");
+        }));
+    }
+}
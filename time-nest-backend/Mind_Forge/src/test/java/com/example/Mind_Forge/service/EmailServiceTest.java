@@ -0,0 +1,111 @@
+package com.example.Mind_Forge.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+
+/**
+ * EmailService against the in-process stub provider.
+ */
+class EmailServiceTest {
+
+    private StubEmailProvider provider;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        provider = new StubEmailProvider();
+        EmailProviderGuard guard = new EmailProviderGuard(new SimpleMeterRegistry(), Clock.systemUTC(),
+                50, 20, 10, Duration.ofSeconds(30), 3, 4, 1000);
+        emailService = new EmailService("test-key", "noreply@example.com", provider.getBaseUrl() + "/",
+                new OkHttpClient(), guard);
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.close();
+    }
+
+    @Test
+    void sendsSpecialCharactersIntact() throws IOException {
+        String html = "<p class=\"x\">Back\\slash, tab\t, newline\n, unicode é☃</p>";
+
+        emailService.sendVerificationEmail("ann@example.com", "Quote \" subject", html);
+
+        assertEquals(List.of(new EmailMessage("ann@example.com", "Quote \" subject", html)), provider.getMessages());
+        assertEquals("Bearer test-key", provider.getLastAuthorization());
+    }
+
+    @Test
+    void sendsBatchInOneRequest() throws IOException {
+        List<EmailMessage> messages = List.of(
+                new EmailMessage("a@example.com", "One", "<p>1</p>"),
+                new EmailMessage("b@example.com", "Two", "<p>2</p>"),
+                new EmailMessage("c@example.com", "Three", "<p>3</p>"));
+
+        emailService.sendBatch(messages);
+
+        assertEquals(1, provider.getRequestCount());
+        assertEquals(messages, provider.getMessages());
+    }
+
+    @Test
+    void invalidMessageRejectsTheBatch() {
+        List<EmailMessage> messages = List.of(
+                new EmailMessage("a@example.com", "One", "<p>1</p>"),
+                new EmailMessage("not-an-address", "Two", "<p>2</p>"));
+
+        EmailRejectedException rejected = assertThrows(EmailRejectedException.class,
+                () -> emailService.sendBatch(messages));
+
+        assertEquals(422, rejected.getStatusCode());
+        assertTrue(provider.getMessages().isEmpty());
+    }
+
+    @Test
+    void throttlingAndServerErrorsAreRetryable() {
+        provider.failNext(1, 429).failNext(1, 503);
+
+        IOException throttled = assertThrows(IOException.class,
+                () -> emailService.sendVerificationEmail("ann@example.com", "Hi", "<p>hi</p>"));
+        IOException unavailable = assertThrows(IOException.class,
+                () -> emailService.sendVerificationEmail("ann@example.com", "Hi", "<p>hi</p>"));
+
+        assertFalse(throttled instanceof EmailRejectedException);
+        assertFalse(unavailable instanceof EmailRejectedException);
+        assertEquals(2, provider.getFailureCount());
+    }
+
+    @Test
+    void authAndNotFoundErrorsAreRetryableAndTripTheBreaker() throws IOException {
+        EmailProviderGuard guard = new EmailProviderGuard(new SimpleMeterRegistry(), Clock.systemUTC(),
+                50, 4, 3, Duration.ofSeconds(30), 1, 4, 1000);
+        EmailService service = new EmailService("test-key", "noreply@example.com", provider.getBaseUrl(),
+                new OkHttpClient(), guard);
+        provider.failNext(1, 401).failNext(1, 403).failNext(1, 404);
+
+        for (int i = 0; i < 3; i++) {
+            IOException failed = assertThrows(IOException.class,
+                    () -> service.sendVerificationEmail("ann@example.com", "Hi", "<p>hi</p>"));
+            assertFalse(failed instanceof EmailRejectedException);
+        }
+
+        assertEquals(EmailProviderGuard.State.OPEN, guard.getState());
+        assertThrows(EmailProviderUnavailableException.class,
+                () -> service.sendVerificationEmail("ann@example.com", "Hi", "<p>hi</p>"));
+        assertEquals(3, provider.getRequestCount());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.Mind_Forge.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class EmailTemplateTest {
+
+    @Test
+    void escapesParametersButNotRawOnes() {
+        EmailTemplate template = EmailTemplate.compile("test", "<p>{{name}}</p>{{{body}}}", "name", "body");
+
+        assertEquals("<p>O&#39;Brien &amp; &lt;Sons&gt;</p><b>ok</b>",
+                template.render("O'Brien & <Sons>", new StringBuilder("<b>ok</b>")));
+    }
+
+    @Test
+    void rejectsTemplatesThatDontMatchTheirParameters() {
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("test", "{{unknown}}", "name"));
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("test", "no placeholders", "name"));
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("test", "{{name", "name"));
+        assertThrows(IllegalArgumentException.class,
+                () -> EmailTemplate.compile("test", "{{name}}", "name").render());
+    }
+
+    @Test
+    void bundledTemplatesCompileAndRender() {
+        EmailTemplates templates = new EmailTemplates();
+
+        assertTrue(templates.verificationEmail("123456").contains(">123456</div>"));
+        assertTrue(templates.passwordResetEmail("abc-def").contains("?token=abc-def\""));
+        String alert = templates.executiveAlertEmail("Ann \"AJ\" Lee", "ann@example.com", "Acme", "Yard",
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5), "Left area", 7.5, 120);
+        assertTrue(alert.contains("Ann &quot;AJ&quot; Lee (ann@example.com)"));
+        assertTrue(alert.contains("2025-01-02 03:04:05"));
+    }
+}
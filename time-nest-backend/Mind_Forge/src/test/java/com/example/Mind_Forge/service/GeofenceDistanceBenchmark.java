@@ -0,0 +1,171 @@
+package com.example.Mind_Forge.service;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Haversine vs the flat-projection fast path used by GeofenceGeometry and
+ * WorkAreaService.findContainingAreas.
+ *
+ * Not a unit test - run with:
+ * mvn test-compile exec:java -Dexec.mainClass=com.example.Mind_Forge.service.GeofenceDistanceBenchmark -Dexec.classpathScope=test
+ *
+ * Setup fails the run if the fast path disagrees with Haversine on any containment
+ * decision, or if its distance is off by more than 0.01% within the fast path range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeofenceDistanceBenchmark {
+
+    private static final int POINTS = 1024;
+    private static final int AREAS = 64;
+
+    private final WorkAreaService workAreaService = new WorkAreaService(null, null, null, null);
+
+    private GeofenceGeometry site;
+    private double[] pointLatitudes;
+    private double[] pointLongitudes;
+    private double[] areaLatitudes;
+    private double[] areaLongitudes;
+    private double[] areaRadii;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double siteLatitude = 51.5;
+        double siteLongitude = -0.12;
+        double siteRadius = 150;
+        site = GeofenceGeometry.circle(siteLatitude, siteLongitude, siteRadius);
+
+        // Employees mostly on site, some wandering up to 3 radii out
+        pointLatitudes = new double[POINTS];
+        pointLongitudes = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            double distance = random.nextDouble() * siteRadius * 3;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            pointLatitudes[i] = siteLatitude + distance * Math.cos(bearing) / 111_195;
+            pointLongitudes[i] = siteLongitude
+                    + distance * Math.sin(bearing) / (111_195 * Math.cos(Math.toRadians(siteLatitude)));
+        }
+
+        // Sites spread over a city
+        areaLatitudes = new double[AREAS];
+        areaLongitudes = new double[AREAS];
+        areaRadii = new double[AREAS];
+        for (int a = 0; a < AREAS; a++) {
+            areaLatitudes[a] = siteLatitude + (random.nextDouble() - 0.5) * 0.01;
+            areaLongitudes[a] = siteLongitude + (random.nextDouble() - 0.5) * 0.015;
+            areaRadii[a] = 50 + random.nextDouble() * 250;
+        }
+
+        verifyAccuracy(random);
+    }
+
+    private void verifyAccuracy(Random random) {
+        for (int i = 0; i < 1_000_000; i++) {
+            double latitude = -75 + random.nextDouble() * 150;
+            double longitude = -180 + random.nextDouble() * 360;
+            double radius = 20 + random.nextDouble() * 5000;
+            double distance = random.nextDouble() * radius * 3;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double pointLatitude = latitude + distance * Math.cos(bearing) / 111_195;
+            double pointLongitude = longitude
+                    + distance * Math.sin(bearing) / (111_195 * Math.cos(Math.toRadians(latitude)));
+
+            double exact = GeofenceGeometry.haversineMeters(latitude, longitude, pointLatitude, pointLongitude);
+            GeofenceGeometry circle = GeofenceGeometry.circle(latitude, longitude, radius);
+            if (circle.contains(pointLatitude, pointLongitude) != (exact <= radius)) {
+                throw new IllegalStateException("Fast path containment disagrees with Haversine at "
+                        + pointLatitude + "," + pointLongitude);
+            }
+
+            double approximate = GeofenceGeometry.approximateDistanceMeters(
+                    latitude, longitude, pointLatitude, pointLongitude);
+            if (exact > 1 && Math.abs(approximate - exact) / exact > 1e-4) {
+                throw new IllegalStateException("Fast path distance off by more than 0.01%: "
+                        + approximate + " vs " + exact);
+            }
+        }
+    }
+
+    @Benchmark
+    public void haversineContains(Blackhole blackhole) {
+        for (int i = 0; i < POINTS; i++) {
+            blackhole.consume(GeofenceGeometry.haversineMeters(
+                    site.getCenterLatitude(), site.getCenterLongitude(), pointLatitudes[i], pointLongitudes[i])
+                    <= site.getRadiusMeters());
+        }
+    }
+
+    @Benchmark
+    public void fastPathContains(Blackhole blackhole) {
+        for (int i = 0; i < POINTS; i++) {
+            blackhole.consume(site.contains(pointLatitudes[i], pointLongitudes[i]));
+        }
+    }
+
+    @Benchmark
+    public void haversineDistance(Blackhole blackhole) {
+        for (int i = 0; i < POINTS; i++) {
+            blackhole.consume(GeofenceGeometry.haversineMeters(
+                    site.getCenterLatitude(), site.getCenterLongitude(), pointLatitudes[i], pointLongitudes[i]));
+        }
+    }
+
+    @Benchmark
+    public void fastPathDistance(Blackhole blackhole) {
+        for (int i = 0; i < POINTS; i++) {
+            blackhole.consume(site.distanceMeters(pointLatitudes[i], pointLongitudes[i]));
+        }
+    }
+
+    @Benchmark
+    public int[] haversineManyToMany() {
+        int[] containing = new int[POINTS];
+        for (int p = 0; p < POINTS; p++) {
+            int best = -1;
+            double bestRatio = Double.MAX_VALUE;
+            for (int a = 0; a < AREAS; a++) {
+                double ratio = GeofenceGeometry.haversineMeters(
+                        areaLatitudes[a], areaLongitudes[a], pointLatitudes[p], pointLongitudes[p]) / areaRadii[a];
+                if (ratio <= 1 && ratio < bestRatio) {
+                    bestRatio = ratio;
+                    best = a;
+                }
+            }
+            containing[p] = best;
+        }
+        return containing;
+    }
+
+    @Benchmark
+    public int[] batchManyToMany() {
+        return workAreaService.findContainingAreas(
+                pointLatitudes, pointLongitudes, areaLatitudes, areaLongitudes, areaRadii);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeofenceDistanceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.Mind_Forge.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.example.Mind_Forge.model.Company;
+import com.example.Mind_Forge.model.TimeLog;
+import com.example.Mind_Forge.model.User;
+import com.example.Mind_Forge.model.WorkArea;
+import com.example.Mind_Forge.repository.WorkAreaRepository;
+import com.example.Mind_Forge.service.WorkAreaGeometryCache.CompanySnapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Circle fast path against Haversine, polygon containment and signed distance (with the bounding
+ * box short cut), picking the containing area, work area snapshot invalidation, and active shifts
+ * following work area edits.
+ */
+class GeofenceGeometryTest {
+
+    private static final double LATITUDE = 51.5007;
+    private static final double LONGITUDE = -0.1246;
+    // Along a meridian, Haversine distance is exactly the latitude offset
+    private static final double METERS_PER_DEGREE = GeofenceGeometry.EARTH_RADIUS_METERS * Math.PI / 180;
+
+    @Test
+    void circleFastPathAgreesWithHaversine() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            double latitude = -75 + random.nextDouble() * 150;
+            double longitude = -180 + random.nextDouble() * 360;
+            double radius = 20 + random.nextDouble() * 5000;
+            double distance = random.nextDouble() * radius * 3;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            double pointLatitude = latitude + distance * Math.cos(bearing) / 111_195;
+            double pointLongitude = longitude
+                    + distance * Math.sin(bearing) / (111_195 * Math.cos(Math.toRadians(latitude)));
+
+            double exact = GeofenceGeometry.haversineMeters(latitude, longitude, pointLatitude, pointLongitude);
+            GeofenceGeometry circle = GeofenceGeometry.circle(latitude, longitude, radius);
+            assertEquals(exact <= radius, circle.contains(pointLatitude, pointLongitude));
+            assertEquals(exact, circle.distanceMeters(pointLatitude, pointLongitude), Math.max(exact * 1e-4, 1e-6));
+            assertEquals(exact, GeofenceGeometry.approximateDistanceMeters(latitude, longitude,
+                    pointLatitude, pointLongitude), Math.max(exact * 1e-4, 1e-6));
+        }
+    }
+
+    @Test
+    void circleBoundaryBandIsDecidedByHaversine() {
+        GeofenceGeometry circle = GeofenceGeometry.circle(LATITUDE, LONGITUDE, 100);
+
+        assertTrue(circle.contains(north(99.99), LONGITUDE));
+        // Right on the radius, whatever Haversine says wins
+        assertEquals(GeofenceGeometry.haversineMeters(LATITUDE, LONGITUDE, north(100), LONGITUDE) <= 100,
+                circle.contains(north(100), LONGITUDE));
+        assertFalse(circle.contains(north(100.01), LONGITUDE));
+
+        // Inside the band (0.5 m + 0.1% of the radius) the distance is the exact one
+        for (double meters : new double[] {99.5, 100, 100.5}) {
+            assertEquals(GeofenceGeometry.haversineMeters(LATITUDE, LONGITUDE, north(meters), LONGITUDE),
+                    circle.distanceMeters(north(meters), LONGITUDE), 0);
+        }
+        assertEquals(50, circle.distanceMeters(north(50), LONGITUDE), 50 * 1e-4);
+    }
+
+    @Test
+    void circleBeyondFastPathRangeUsesHaversine() {
+        GeofenceGeometry circle = GeofenceGeometry.circle(LATITUDE, LONGITUDE, 30_000);
+
+        assertTrue(circle.contains(north(29_999), LONGITUDE));
+        assertFalse(circle.contains(north(30_001), LONGITUDE));
+        assertEquals(25_000, circle.distanceMeters(north(25_000), LONGITUDE), 1e-6);
+    }
+
+    @Test
+    void polygonContainmentAndSignedDistance() {
+        // Roughly 100 m x 100 m around the reference point
+        GeofenceGeometry square = GeofenceGeometry.polygon(List.of(
+                new double[] {north(-50), east(-50)},
+                new double[] {north(-50), east(50)},
+                new double[] {north(50), east(50)},
+                new double[] {north(50), east(-50)}));
+
+        assertTrue(square.isPolygon());
+        assertEquals(0, square.allowedDistanceMeters());
+
+        assertTrue(square.contains(LATITUDE, LONGITUDE));
+        assertEquals(-50, square.distanceMeters(LATITUDE, LONGITUDE), 0.5);
+        assertTrue(square.contains(north(40), LONGITUDE));
+        assertEquals(-10, square.distanceMeters(north(40), LONGITUDE), 0.5);
+
+        assertFalse(square.contains(LATITUDE, east(70)));
+        assertEquals(20, square.distanceMeters(LATITUDE, east(70)), 0.5);
+        assertFalse(square.contains(north(80), east(80)));
+        assertEquals(Math.hypot(30, 30), square.distanceMeters(north(80), east(80)), 0.5);
+    }
+
+    @Test
+    void polygonOutsideTheBoundingBoxGetsTheBoxDistance() {
+        // Right triangle, hypotenuse from the south-east to the north-west corner of its box
+        GeofenceGeometry triangle = GeofenceGeometry.polygon(List.of(
+                new double[] {north(-50), east(-50)},
+                new double[] {north(-50), east(50)},
+                new double[] {north(50), east(-50)}));
+
+        // Beyond the box's north-east corner: the hypotenuse is ~106 m away, the box ~35 m
+        double far = triangle.distanceMeters(north(75), east(75));
+        assertEquals(Math.hypot(25, 25), far, 0.5);
+        assertFalse(triangle.contains(north(75), east(75)));
+
+        // Within the boundary band of the box the edges are still scanned
+        assertEquals(100.4 / Math.sqrt(2), triangle.distanceMeters(north(50.2), east(50.2)), 0.5);
+        // Inside the box but outside the triangle is unaffected
+        assertEquals(Math.hypot(25, 25), triangle.distanceMeters(north(25), east(25)), 0.5);
+    }
+
+    @Test
+    void polygonNeedsThreePoints() {
+        assertThrows(IllegalArgumentException.class, () -> GeofenceGeometry.polygon(List.of(
+                new double[] {LATITUDE, LONGITUDE}, new double[] {north(10), LONGITUDE})));
+    }
+
+    @Test
+    void findContainingAreasPicksTheDeepestArea() {
+        WorkAreaService workAreaService = new WorkAreaService(null, null, null, null);
+        // A large site and a small one 150 m north of its centre, overlapping it
+        double[] areaLatitudes = {LATITUDE, north(150)};
+        double[] areaLongitudes = {LONGITUDE, LONGITUDE};
+        double[] areaRadii = {500, 100};
+
+        int[] containing = workAreaService.findContainingAreas(
+                new double[] {north(150), north(240), LATITUDE, north(700)},
+                new double[] {LONGITUDE, LONGITUDE, LONGITUDE, LONGITUDE},
+                areaLatitudes, areaLongitudes, areaRadii);
+
+        // Centre of the small site; near the edge of the small site (90% of its radius out) but
+        // well inside the large one (48%); centre of the large site; outside both
+        assertArrayEquals(new int[] {1, 0, 0, -1}, containing);
+        assertThrows(IllegalArgumentException.class, () -> workAreaService.findContainingAreas(
+                new double[] {LATITUDE}, new double[0], areaLatitudes, areaLongitudes, areaRadii));
+    }
+
+    @Test
+    void snapshotIsReusedUntilInvalidated() {
+        WorkAreaRepository repository = mock(WorkAreaRepository.class);
+        when(repository.findByCompanyId(1L)).thenReturn(List.of(workArea(10L, 100)));
+        WorkAreaGeometryCache cache = new WorkAreaGeometryCache(repository, new SimpleMeterRegistry(), 0.01, 30_000);
+
+        CompanySnapshot first = cache.snapshot(1L);
+        assertSame(first, cache.snapshot(1L));
+        assertEquals(1, first.candidates(LATITUDE, LONGITUDE, 0).size());
+
+        when(repository.findByCompanyId(1L)).thenReturn(List.of(workArea(10L, 250)));
+        cache.invalidate(1L);
+        CompanySnapshot reloaded = cache.snapshot(1L);
+
+        assertNotSame(first, reloaded);
+        assertEquals(250, reloaded.get(10L).orElseThrow().radiusMeters());
+        verify(repository, times(2)).findByCompanyId(1L);
+    }
+
+    @Test
+    void invalidationInsideATransactionAlsoAppliesAfterCommit() {
+        WorkAreaRepository repository = mock(WorkAreaRepository.class);
+        when(repository.findByCompanyId(1L)).thenReturn(List.of(workArea(10L, 100)));
+        WorkAreaGeometryCache cache = new WorkAreaGeometryCache(repository, new SimpleMeterRegistry(), 0.01, 30_000);
+        cache.snapshot(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(1L);
+            // Loaded while the transaction is still open - may have read the pre-commit rows
+            CompanySnapshot duringTransaction = cache.snapshot(1L);
+            assertSame(duringTransaction, cache.snapshot(1L));
+
+            when(repository.findByCompanyId(1L)).thenReturn(List.of(workArea(10L, 250)));
+            TransactionSynchronizationUtils.triggerAfterCommit();
+
+            assertEquals(250, cache.snapshot(1L).get(10L).orElseThrow().radiusMeters());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(repository, times(3)).findByCompanyId(1L);
+    }
+
+    @Test
+    void activeShiftPicksUpWorkAreaChangesMadeElsewhere() {
+        WorkAreaRepository repository = mock(WorkAreaRepository.class);
+        when(repository.findByCompanyId(1L)).thenReturn(List.of(workArea(10L, 100)));
+        // No local invalidation happens for an edit on another instance - only the TTL
+        WorkAreaGeometryCache cache = new WorkAreaGeometryCache(repository, new SimpleMeterRegistry(), 0.01, 0);
+        ActiveShiftRegistry registry = new ActiveShiftRegistry(null, null, cache, new SimpleMeterRegistry(), 500);
+        ActiveShiftState shift = new ActiveShiftState(activeShift(), cache.snapshot(1L).get(10L).orElseThrow());
+
+        registry.refreshWorkArea(shift);
+        assertFalse(shift.getGeofence().contains(north(150), LONGITUDE));
+
+        when(repository.findByCompanyId(1L)).thenReturn(List.of(workArea(10L, 250)));
+        registry.refreshWorkArea(shift);
+        assertEquals(250, shift.getWorkAreaRadiusMeters());
+        assertTrue(shift.getGeofence().contains(north(150), LONGITUDE));
+
+        when(repository.findByCompanyId(1L)).thenReturn(List.of());
+        registry.refreshWorkArea(shift);
+        assertFalse(shift.hasWorkArea());
+    }
+
+    private static TimeLog activeShift() {
+        Company company = new Company();
+        company.setId(1L);
+        User user = new User();
+        user.setId(7L);
+        user.setCompany(company);
+        TimeLog timeLog = new TimeLog();
+        timeLog.setId(42L);
+        timeLog.setUser(user);
+        timeLog.setStartTime(LocalDateTime.now());
+        return timeLog;
+    }
+
+    private static double north(double meters) {
+        return LATITUDE + meters / METERS_PER_DEGREE;
+    }
+
+    private static double east(double meters) {
+        return LONGITUDE + meters / (METERS_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE)));
+    }
+
+    private static WorkArea workArea(Long id, double radiusMeters) {
+        WorkArea workArea = new WorkArea("Yard", LATITUDE, LONGITUDE, radiusMeters, null);
+        workArea.setId(id);
+        return workArea;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.Mind_Forge.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.example.Mind_Forge.repository.HeartbeatBatchRepository;
+import com.example.Mind_Forge.repository.HeartbeatBatchRepository.TrackSegmentInsert;
+import com.example.Mind_Forge.repository.LocationTrackSegmentRepository;
+
+/**
+ * Track segments decode back to the points that were encoded - including deltas that go
+ * negative, one-point segments and the segments a shift over midnight is split into.
+ */
+class LocationTrackCodecTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 14, 9, 0);
+
+    @Test
+    void negativeDeltasRoundTrip() {
+        // Heading south-west across the equator and the prime meridian, plus a timestamp
+        // before the segment start
+        List<TrackPoint> points = List.of(
+                new TrackPoint(0.000004, 0.000003, START),
+                new TrackPoint(-0.000002, -0.000005, START.plusSeconds(30)),
+                new TrackPoint(-33.868820, -151.209296, START.plusSeconds(31)),
+                new TrackPoint(-33.868821, -151.209290, START.minusSeconds(5)));
+
+        assertEquals(points, roundTrip(points, START));
+    }
+
+    @Test
+    void singlePointSegmentRoundTrips() {
+        List<TrackPoint> points = List.of(new TrackPoint(51.500712, -0.124619, START));
+
+        byte[] encoded = LocationTrackCodec.encode(points, START);
+
+        assertEquals(points, LocationTrackCodec.decode(encoded, 1, START));
+        assertEquals(points, roundTrip(points, START.minusMinutes(3).plusSeconds(4)));
+    }
+
+    @Test
+    void shiftOverMidnightIsSealedIntoPerDaySegmentsThatRoundTrip() {
+        HeartbeatBatchRepository batchRepository = mock(HeartbeatBatchRepository.class);
+        LocationTrackService trackService = new LocationTrackService(
+                mock(LocationTrackSegmentRepository.class), batchRepository, 120, 10, 200);
+        LocalDateTime midnight = LocalDateTime.of(2026, 3, 15, 0, 0);
+        List<TrackPoint> points = List.of(
+                new TrackPoint(51.500712, -0.124619, midnight.minusSeconds(90)),
+                new TrackPoint(51.500702, -0.124631, midnight.minusSeconds(30)),
+                new TrackPoint(51.500698, -0.124640, midnight.plusSeconds(30)),
+                new TrackPoint(51.500688, -0.124652, midnight.plusSeconds(90)));
+        for (TrackPoint point : points) {
+            trackService.append(42L, point.latitude(), point.longitude(), point.timestamp());
+        }
+
+        trackService.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TrackSegmentInsert>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository).insertTrackSegments(inserted.capture(), anyInt());
+        List<TrackSegmentInsert> segments = inserted.getValue();
+        assertEquals(2, segments.size());
+
+        List<TrackPoint> decoded = new ArrayList<>();
+        for (TrackSegmentInsert segment : segments) {
+            assertEquals(segment.segmentStart().toLocalDate(), segment.segmentEnd().toLocalDate());
+            assertEquals(2, segment.pointCount());
+            decoded.addAll(LocationTrackCodec.decode(
+                    segment.encodedPoints(), segment.pointCount(), segment.segmentStart()));
+        }
+        assertEquals(midnight.minusSeconds(90), segments.get(0).segmentStart());
+        assertEquals(midnight.plusSeconds(30), segments.get(1).segmentStart());
+        assertEquals(points, decoded);
+    }
+
+    private static List<TrackPoint> roundTrip(List<TrackPoint> points, LocalDateTime segmentStart) {
+        return LocationTrackCodec.decode(LocationTrackCodec.encode(points, segmentStart), points.size(), segmentStart);
+    }
+}
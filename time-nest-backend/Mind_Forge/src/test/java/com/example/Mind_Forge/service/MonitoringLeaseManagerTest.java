@@ -0,0 +1,125 @@
+package com.example.Mind_Forge.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.example.Mind_Forge.repository.MonitoringLeaseRepository;
+
+/**
+ * Several simulated instances sharing an embedded database, driven by a hand-advanced clock.
+ */
+class MonitoringLeaseManagerTest {
+
+    private static final int PARTITIONS = 16;
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    private MonitoringLeaseRepository repository;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:leases-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V4__add_monitoring_leases.sql"))
+                .execute(dataSource);
+        repository = new MonitoringLeaseRepository(new JdbcTemplate(dataSource));
+        clock = new MutableClock();
+    }
+
+    @Test
+    void singleInstanceTakesEveryPartition() {
+        MonitoringLeaseManager node = node("a");
+        node.renew();
+
+        assertEquals(PARTITIONS, node.getOwnedPartitions().size());
+    }
+
+    @Test
+    void joiningInstanceGetsAnEvenShare() {
+        MonitoringLeaseManager a = node("a");
+        MonitoringLeaseManager b = node("b");
+        a.renew();
+
+        // b can't claim until a hands back its surplus on its next renewal
+        b.renew();
+        assertEquals(0, b.getOwnedPartitions().size());
+
+        tick(a, b);
+        tick(a, b);
+
+        assertEquals(PARTITIONS / 2, a.getOwnedPartitions().size());
+        assertEquals(PARTITIONS / 2, b.getOwnedPartitions().size());
+        assertDisjointAndComplete(a, b);
+    }
+
+    @Test
+    void survivorsTakeOverFromAnInstanceThatDies() {
+        MonitoringLeaseManager a = node("a");
+        MonitoringLeaseManager b = node("b");
+        MonitoringLeaseManager c = node("c");
+        for (int i = 0; i < 3; i++) {
+            tick(a, b, c);
+        }
+        assertDisjointAndComplete(a, b, c);
+
+        // c stops renewing; its leases and liveness expire
+        clock.advance(LEASE.plusSeconds(1));
+        tick(a, b);
+        tick(a, b);
+
+        assertTrue(c.getOwnedPartitions().isEmpty(), "expired leases must not be trusted");
+        assertDisjointAndComplete(a, b);
+    }
+
+    @Test
+    void releasedPartitionsAreTakenOverWithoutWaitingForExpiry() {
+        MonitoringLeaseManager a = node("a");
+        MonitoringLeaseManager b = node("b");
+        tick(a, b);
+        tick(a, b);
+
+        b.release();
+        tick(a);
+        tick(a);
+
+        assertEquals(PARTITIONS, a.getOwnedPartitions().size());
+    }
+
+    private MonitoringLeaseManager node(String instanceId) {
+        return new MonitoringLeaseManager(repository, clock, instanceId, PARTITIONS, LEASE, true);
+    }
+
+    // One renewal round, a few seconds apart as with the scheduled renewal
+    private void tick(MonitoringLeaseManager... nodes) {
+        for (MonitoringLeaseManager node : nodes) {
+            node.renew();
+        }
+        clock.advance(Duration.ofSeconds(10));
+        for (MonitoringLeaseManager node : nodes) {
+            node.renew();
+        }
+    }
+
+    private static void assertDisjointAndComplete(MonitoringLeaseManager... nodes) {
+        Set<Integer> seen = new HashSet<>();
+        for (MonitoringLeaseManager node : nodes) {
+            for (int partition : node.getOwnedPartitions()) {
+                assertTrue(seen.add(partition), "partition " + partition + " held twice");
+            }
+        }
+        assertEquals(PARTITIONS, seen.size(), "every partition must be held: " + List.copyOf(seen));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.Mind_Forge.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.Mind_Forge.model.ShiftViolationNotification;
+import com.example.Mind_Forge.model.TimeLog;
+import com.example.Mind_Forge.model.User;
+import com.example.Mind_Forge.repository.ShiftViolationNotificationRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The stream poll picking up notifications another instance created, without resending the
+ * ones this instance already pushed.
+ */
+class NotificationStreamServiceTest {
+
+    private ShiftViolationNotificationRepository repository;
+    private NotificationStreamService streams;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ShiftViolationNotificationRepository.class);
+        streams = new NotificationStreamService(repository, new SimpleMeterRegistry(), 300_000, 5_000);
+    }
+
+    @Test
+    void pollDeliversNotificationsCreatedElsewhere() {
+        streams.subscribe(7L, 10L);
+        when(repository.findByUserIdInAndIsReadFalseAndIdGreaterThanOrderByIdAsc(List.of(7L), 10L))
+                .thenReturn(List.of(notification(11L, 7L), notification(12L, 7L)));
+
+        streams.pollForNewNotifications();
+        verify(repository).markDeliveredUpTo(7L, 12L);
+
+        // The next poll only asks for what came after
+        streams.pollForNewNotifications();
+        verify(repository).findByUserIdInAndIsReadFalseAndIdGreaterThanOrderByIdAsc(List.of(7L), 12L);
+    }
+
+    @Test
+    void pollSkipsNotificationsAlreadyPushedHere() {
+        streams.subscribe(7L, 10L);
+        streams.onShiftAlert(new ShiftAlertEvent(7L, 42L, 11L, ShiftAlertEvent.WARNING, "Outside", LocalDateTime.now()));
+        when(repository.findByUserIdInAndIsReadFalseAndIdGreaterThanOrderByIdAsc(List.of(7L), 11L))
+                .thenReturn(List.of());
+
+        streams.pollForNewNotifications();
+
+        verify(repository, never()).findByUserIdInAndIsReadFalseAndIdGreaterThanOrderByIdAsc(any(), eq(10L));
+        verify(repository, never()).markDeliveredUpTo(eq(7L), anyLong());
+    }
+
+    @Test
+    void pollIsSkippedWithoutOpenStreams() {
+        streams.pollForNewNotifications();
+
+        verify(repository, never()).findByUserIdInAndIsReadFalseAndIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    private static ShiftViolationNotification notification(Long id, Long userId) {
+        User user = new User();
+        user.setId(userId);
+        TimeLog timeLog = new TimeLog();
+        timeLog.setId(42L);
+        ShiftViolationNotification notification = new ShiftViolationNotification();
+        notification.setId(id);
+        notification.setUser(user);
+        notification.setTimeLog(timeLog);
+        notification.setNotificationType(ShiftAlertEvent.WARNING);
+        notification.setMessage("Outside the work area");
+        return notification;
+    }
+}
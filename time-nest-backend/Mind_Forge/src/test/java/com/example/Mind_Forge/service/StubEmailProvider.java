@@ -0,0 +1,193 @@
+package com.example.Mind_Forge.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for the Resend API, for tests and benchmarks.
+ * Point EmailService at {@link #getBaseUrl()}.
+ *
+ * Accepts POST /emails and /emails/batch, records every accepted message, and can be told to
+ * add latency, fail the next n requests with a given status, or fail a share of requests at
+ * random with 429 (with Retry-After) or 5xx.
+ */
+public class StubEmailProvider implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static {
+        // Otherwise Nagle plus delayed ACKs add ~40 ms to every request and swamp what's measured
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Queue<EmailMessage> messages = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> scriptedFailures = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger acceptedIds = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double failureRate;
+    private volatile int failureStatus = 503;
+    private volatile String lastAuthorization;
+
+    public StubEmailProvider() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/emails", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public StubEmailProvider withLatency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Fail this share of requests (0 to 1) with the status, e.g. 429 or 503.
+     */
+    public StubEmailProvider withFailureRate(double rate, int status) {
+        this.failureRate = rate;
+        this.failureStatus = status;
+        return this;
+    }
+
+    public StubEmailProvider failNext(int times, int status) {
+        for (int i = 0; i < times; i++) {
+            scriptedFailures.add(status);
+        }
+        return this;
+    }
+
+    public List<EmailMessage> getMessages() {
+        return List.copyOf(messages);
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public int getFailureCount() {
+        return failures.get();
+    }
+
+    public String getLastAuthorization() {
+        return lastAuthorization;
+    }
+
+    public void reset() {
+        messages.clear();
+        scriptedFailures.clear();
+        requests.set(0);
+        failures.set(0);
+        latency = Duration.ZERO;
+        failureRate = 0;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            lastAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "{\"message\":\"Method not allowed\"}");
+                return;
+            }
+
+            if (!latency.isZero()) {
+                try {
+                    Thread.sleep(latency.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            Integer status = scriptedFailures.poll();
+            if (status == null && failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                status = failureStatus;
+            }
+            if (status != null) {
+                failures.incrementAndGet();
+                if (status == 429) {
+                    exchange.getResponseHeaders().add("Retry-After", "1");
+                }
+                respond(exchange, status, "{\"message\":\"Injected failure\"}");
+                return;
+            }
+
+            JsonNode payload;
+            try {
+                payload = MAPPER.readTree(body);
+            } catch (IOException e) {
+                respond(exchange, 422, "{\"message\":\"Invalid JSON\"}");
+                return;
+            }
+            boolean batch = exchange.getRequestURI().getPath().endsWith("/batch");
+            if (batch != payload.isArray()) {
+                respond(exchange, 422, "{\"message\":\"Unexpected payload shape\"}");
+                return;
+            }
+
+            // Like Resend, one invalid message rejects the whole batch
+            List<EmailMessage> accepted = new ArrayList<>();
+            for (JsonNode email : batch ? payload : List.of(payload)) {
+                JsonNode to = email.path("to");
+                if (!to.isArray() || to.isEmpty() || !to.get(0).asText().contains("@")) {
+                    respond(exchange, 422, "{\"message\":\"Invalid `to` field\"}");
+                    return;
+                }
+                accepted.add(new EmailMessage(to.get(0).asText(), email.path("subject").asText(),
+                        email.path("html").asText()));
+            }
+            messages.addAll(accepted);
+
+            StringBuilder ids = new StringBuilder();
+            for (int i = 0; i < accepted.size(); i++) {
+                ids.append(i > 0 ? "," : "")
+                        .append("{\"id\":\"stub-").append(acceptedIds.incrementAndGet()).append("\"}");
+            }
+            respond(exchange, 200, batch ? "{\"data\":[" + ids + "]}" : ids.toString());
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
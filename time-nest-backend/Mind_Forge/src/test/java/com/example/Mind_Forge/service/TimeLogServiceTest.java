@@ -0,0 +1,141 @@
+package com.example.Mind_Forge.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.Mind_Forge.dto.timelog.LocationHeartbeatDto;
+import com.example.Mind_Forge.model.TimeLog;
+import com.example.Mind_Forge.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The offline heartbeat replay against an in-memory shift, with the server running in a zone
+ * other than UTC - devices send UTC instants.
+ */
+class TimeLogServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    private TimeZone originalZone;
+    private ActiveShiftState shift;
+    private LocationTrackService locationTrackService;
+    private TimeLogService timeLogService;
+
+    @BeforeEach
+    void setUp() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("ann@example.com");
+        TimeLog timeLog = new TimeLog();
+        timeLog.setId(42L);
+        timeLog.setUser(user);
+        timeLog.setStartTime(LocalDateTime.now().minusHours(1));
+        timeLog.setLastLocationCheck(LocalDateTime.now().minusMinutes(30));
+        shift = new ActiveShiftState(timeLog, null);
+
+        ActiveShiftRegistry registry = mock(ActiveShiftRegistry.class);
+        when(registry.getOrLoad(7L)).thenReturn(shift);
+        HeartbeatIntervalAdvisor intervalAdvisor = mock(HeartbeatIntervalAdvisor.class);
+        when(intervalAdvisor.recommendIntervalSeconds(any())).thenReturn(60);
+
+        locationTrackService = mock(LocationTrackService.class);
+        // Only its distance maths is used on this path
+        WorkAreaService workAreaService = new WorkAreaService(null, null, null, null);
+        timeLogService = new TimeLogService(null, null, null, workAreaService, registry,
+                mock(ApplicationEventPublisher.class), intervalAdvisor, locationTrackService,
+                mock(ShiftDeadlineScheduler.class));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        TimeZone.setDefault(originalZone);
+    }
+
+    @Test
+    void replaysUtcTimestampsAtTheirServerLocalTime() throws Exception {
+        Instant first = Instant.now().minus(10, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.SECONDS);
+        Instant second = first.plus(5, ChronoUnit.MINUTES);
+        // As the device sends them - Date.toISOString(), newest first
+        List<LocationHeartbeatDto> heartbeats = MAPPER.readValue(
+                "[" + heartbeat(40.7130, -74.0060, second) + "," + heartbeat(40.7128, -74.0060, first) + "]",
+                new TypeReference<>() { });
+
+        HeartbeatResult result = timeLogService.updateLocationHeartbeats(heartbeats);
+
+        assertEquals(2, result.processed());
+        assertEquals(LocalDateTime.ofInstant(second, ZoneId.of("America/New_York")), shift.getLastLocationCheck());
+        assertEquals(40.7130, shift.getCurrentLatitude());
+    }
+
+    @Test
+    void skipsHeartbeatsOlderThanTheLastPositionAndClampsFutureOnes() throws Exception {
+        Instant stale = Instant.now().minus(45, ChronoUnit.MINUTES);
+        Instant future = Instant.now().plus(2, ChronoUnit.HOURS);
+        List<LocationHeartbeatDto> heartbeats = MAPPER.readValue(
+                "[" + heartbeat(40.7128, -74.0060, stale) + "," + heartbeat(40.7130, -74.0060, future) + "]",
+                new TypeReference<>() { });
+
+        LocalDateTime before = LocalDateTime.now();
+        HeartbeatResult result = timeLogService.updateLocationHeartbeats(heartbeats);
+        LocalDateTime after = LocalDateTime.now();
+
+        assertEquals(1, result.processed());
+        assertFalse(shift.getLastLocationCheck().isBefore(before));
+        assertFalse(shift.getLastLocationCheck().isAfter(after));
+    }
+
+    @Test
+    void replayAfterANewerLiveHeartbeatStillRecordsTheBacklogInTheTrack() throws Exception {
+        timeLogService.recordHeartbeat(shift, 40.7135, -74.0060);
+        LocalDateTime live = shift.getLastLocationCheck();
+
+        Instant first = Instant.now().minus(4, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.SECONDS);
+        Instant second = first.plus(2, ChronoUnit.MINUTES);
+        Instant beforeShift = Instant.now().minus(2, ChronoUnit.HOURS);
+        List<LocationHeartbeatDto> heartbeats = MAPPER.readValue("[" + heartbeat(40.7128, -74.0060, first) + ","
+                + heartbeat(40.7130, -74.0060, second) + "," + heartbeat(40.7120, -74.0060, beforeShift) + "]",
+                new TypeReference<>() { });
+
+        HeartbeatResult result = timeLogService.updateLocationHeartbeats(heartbeats);
+
+        // The live position stays current, the backlog is kept as history
+        assertEquals(0, result.processed());
+        assertEquals(live, shift.getLastLocationCheck());
+        assertEquals(40.7135, shift.getCurrentLatitude());
+        ZoneId zone = ZoneId.of("America/New_York");
+        verify(locationTrackService).append(42L, 40.7128, -74.0060, LocalDateTime.ofInstant(first, zone));
+        verify(locationTrackService).append(42L, 40.7130, -74.0060, LocalDateTime.ofInstant(second, zone));
+        verify(locationTrackService, never()).append(eq(42L), eq(40.7120), eq(-74.0060), any());
+    }
+
+    private static String heartbeat(double latitude, double longitude, Instant timestamp) {
+        return String.format("{\"latitude\":%s,\"longitude\":%s,\"timestamp\":\"%s\"}", latitude, longitude, timestamp);
+    }
+}
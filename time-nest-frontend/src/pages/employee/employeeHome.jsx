@@ -4,7 +4,7 @@ import { useDarkMode } from "../../context/DarkModeContext";
 import { API_BASE_URL } from "../../config/api";
 import { useNotification } from "../../components/Notification";
 import locationHeartbeatService from "../../services/locationHeartbeat";
-import notificationPollerService from "../../services/notificationPoller";
+import notificationStreamService from "../../services/notificationStream";
 
 const EmployeeHome = () => {
   const { isDarkMode } = useDarkMode();
@@ -237,18 +237,18 @@ const EmployeeHome = () => {
         locationHeartbeatService.start();
       }
 
-      // Start notification polling
-      notificationPollerService.start((notification) => {
+      // Start notification stream
+      notificationStreamService.start((notification) => {
         console.log('Received notification:', notification);
         handleIncomingNotification(notification);
       });
-      console.log('Notification poller service started:', notificationPollerService.isRunning());
+      console.log('Notification stream service started:', notificationStreamService.isRunning());
     } else {
       console.log('Stopping monitoring services...');
 
       // Stop services when shift ends
       locationHeartbeatService.stop();
-      notificationPollerService.stop();
+      notificationStreamService.stop();
 
       // Clear warnings
       setViolationWarning(null);
@@ -263,11 +263,11 @@ const EmployeeHome = () => {
     return () => {
       console.log('Component unmounting - stopping services');
       locationHeartbeatService.stop();
-      notificationPollerService.stop();
+      notificationStreamService.stop();
     };
   }, [isShiftActive, workAreas]); // Added workAreas dependency
 
-  // Handle incoming notifications from the poller
+  // Handle incoming notifications from the stream
   const handleIncomingNotification = (notification) => {
     if (notification.notificationType === 'WARNING') {
       showWarning(notification.message, 0); // 0 = don't auto-dismiss
@@ -292,7 +292,7 @@ const EmployeeHome = () => {
 
     // Mark as read after short delay (user has seen it)
     setTimeout(() => {
-      notificationPollerService.markAsRead(notification.id);
+      notificationStreamService.markAsRead(notification.id);
     }, 3000);
   };
 
@@ -13,9 +13,12 @@ class LocationHeartbeatService {
     // Adaptive intervals based on compliance state
     this.COMPLIANT_HEARTBEAT_INTERVAL = 120000; // 2 minutes when in geofence
     this.WARNING_HEARTBEAT_INTERVAL = 30000;    // 30 seconds when outside geofence
+    this.serverIntervalHint = null;             // Interval recommended by the server (ms)
     this.MAX_RETRIES = 5;
     this.retryAttempts = 0;
     this.pendingHeartbeats = [];
+    this.MAX_PENDING_HEARTBEATS = 500; // Server-side batch limit
+    this.replayInFlight = false;
 
     // Callbacks for UI updates
     this.onViolationDetected = null;
@@ -74,6 +77,7 @@ class LocationHeartbeatService {
     this.isActive = false;
     this.violationState = 'compliant';
     this.violationStartTime = null;
+    this.serverIntervalHint = null;
 
     if (this.watchId) {
       navigator.geolocation.clearWatch(this.watchId);
@@ -212,10 +216,17 @@ class LocationHeartbeatService {
 
   conditionalServerSync(latitude, longitude) {
     const now = Date.now();
-    const interval = this.violationState === 'warning'
+    const stateInterval = this.violationState === 'warning'
       ? this.WARNING_HEARTBEAT_INTERVAL
       : this.COMPLIANT_HEARTBEAT_INTERVAL;
 
+    // Prefer the server's recommendation - it knows how close we are to the
+    // work area edge. Never report slower than the warning interval during a violation.
+    const hint = this.serverIntervalHint ?? stateInterval;
+    const interval = this.violationState === 'warning'
+      ? Math.min(stateInterval, hint)
+      : hint;
+
     if (!this.lastServerSync || (now - this.lastServerSync) >= interval) {
       this.sendHeartbeatToServer(latitude, longitude, false);
     }
@@ -238,6 +249,14 @@ class LocationHeartbeatService {
       urgent // Flag for backend to prioritize
     };
 
+    // The server ignores positions older than the last one it has, so a live heartbeat must
+    // never overtake the offline backlog - send it as the newest entry of the backlog instead
+    if (this.pendingHeartbeats.length > 0 || this.replayInFlight) {
+      this.queueHeartbeat(heartbeat);
+      this.processPendingHeartbeats();
+      return;
+    }
+
     try {
       const response = await fetch(`${API_BASE_URL}/shift-monitoring/heartbeat`, {
         method: 'POST',
@@ -259,23 +278,26 @@ class LocationHeartbeatService {
           this.stop();
         }
 
-        throw new Error(`HTTP ${response.status}`);
+        const retryError = new Error(`HTTP ${response.status}`);
+        // Server ingest queue is full - wait as long as it asks before replaying
+        if (response.status === 429) {
+          retryError.retryAfterMs = (Number(response.headers.get('Retry-After')) || error.retryAfterSeconds || 5) * 1000;
+        }
+        throw retryError;
       }
 
       const result = await response.json();
       console.log('Heartbeat sent successfully:', { latitude, longitude, urgent });
+      this.applyServerIntervalHint(result);
 
       this.lastServerSync = Date.now();
       this.retryAttempts = 0;
 
-      // Process any queued heartbeats
-      this.processPendingHeartbeats();
-
     } catch (error) {
       console.error('Error sending heartbeat:', error);
 
       // Queue for retry
-      this.pendingHeartbeats.push(heartbeat);
+      this.queueHeartbeat(heartbeat);
       this.retryAttempts++;
 
       if (this.retryAttempts >= this.MAX_RETRIES && this.onNetworkError) {
@@ -283,23 +305,90 @@ class LocationHeartbeatService {
       }
 
       // Exponential backoff
-      const backoffDelay = Math.min(1000 * Math.pow(2, this.retryAttempts), 60000);
+      const backoffDelay = Math.max(
+        Math.min(1000 * Math.pow(2, this.retryAttempts), 60000),
+        error.retryAfterMs || 0
+      );
       setTimeout(() => this.processPendingHeartbeats(), backoffDelay);
     }
   }
 
+  queueHeartbeat(heartbeat) {
+    this.pendingHeartbeats.push(heartbeat);
+    if (this.pendingHeartbeats.length > this.MAX_PENDING_HEARTBEATS) {
+      this.pendingHeartbeats.shift();
+    }
+  }
+
   async processPendingHeartbeats() {
-    // Send most recent heartbeat from queue
-    if (this.pendingHeartbeats.length > 0) {
-      // Keep only most recent heartbeat (discard old ones)
-      const recentHeartbeat = this.pendingHeartbeats[this.pendingHeartbeats.length - 1];
-      this.pendingHeartbeats = [];
-
-      await this.sendHeartbeatToServer(
-        recentHeartbeat.latitude,
-        recentHeartbeat.longitude,
-        recentHeartbeat.urgent
-      );
+    // One replay at a time - anything queued meanwhile goes out with the next one
+    if (this.replayInFlight || this.pendingHeartbeats.length === 0 || !this.isActive) return;
+
+    const token = localStorage.getItem('token');
+    if (!token) return;
+
+    // Replay the whole offline backlog in one request - the server applies
+    // the heartbeats in timestamp order so the geofence history stays accurate
+    const backlog = this.pendingHeartbeats;
+    this.pendingHeartbeats = [];
+    this.replayInFlight = true;
+
+    try {
+      const response = await fetch(`${API_BASE_URL}/shift-monitoring/heartbeat/batch`, {
+        method: 'POST',
+        headers: {
+          'Authorization': `Bearer ${token}`,
+          'Content-Type': 'application/json',
+        },
+        body: JSON.stringify(backlog),
+        signal: AbortSignal.timeout(10000)
+      });
+
+      if (!response.ok) {
+        const error = await response.json();
+        console.error('Heartbeat batch failed:', response.status, error);
+
+        if (error.error?.includes('No active shift')) {
+          console.warn('No active shift detected - stopping heartbeat service');
+          this.replayInFlight = false;
+          this.stop();
+          return;
+        }
+
+        throw new Error(`HTTP ${response.status}`);
+      }
+
+      const result = await response.json();
+      console.log(`Replayed ${result.processed} queued heartbeats`);
+      this.applyServerIntervalHint(result);
+
+      this.lastServerSync = Date.now();
+      this.retryAttempts = 0;
+      this.replayInFlight = false;
+
+      // Live heartbeats that arrived while the replay was in flight
+      this.processPendingHeartbeats();
+
+    } catch (error) {
+      console.error('Error replaying queued heartbeats:', error);
+      this.replayInFlight = false;
+
+      // Put the backlog back in front of anything queued meanwhile
+      this.pendingHeartbeats = backlog.concat(this.pendingHeartbeats).slice(-this.MAX_PENDING_HEARTBEATS);
+      this.retryAttempts++;
+
+      if (this.retryAttempts >= this.MAX_RETRIES && this.onNetworkError) {
+        this.onNetworkError();
+      }
+
+      const backoffDelay = Math.min(1000 * Math.pow(2, this.retryAttempts), 60000);
+      setTimeout(() => this.processPendingHeartbeats(), backoffDelay);
+    }
+  }
+
+  applyServerIntervalHint(result) {
+    if (result?.nextHeartbeatSeconds > 0) {
+      this.serverIntervalHint = result.nextHeartbeatSeconds * 1000;
     }
   }
 
@@ -0,0 +1,203 @@
+import { API_BASE_URL } from '../config/api';
+
+// Receives shift notifications over Server-Sent Events instead of polling.
+// EventSource can't send the Authorization header, so the stream is read with fetch
+// and parsed here; Last-Event-ID is sent on reconnect so missed notifications are replayed.
+class NotificationStreamService {
+  constructor() {
+    this.isActive = false;
+    this.onNotificationCallback = null;
+    this.abortController = null;
+    this.reconnectTimeoutId = null;
+    this.lastEventId = null;
+    this.seenIds = new Set();
+    this.consecutiveErrors = 0;
+    this.reconnectDelay = 5000;   // Server may override with a retry: field
+    this.MAX_RECONNECT_DELAY = 60000;
+    this.MAX_SEEN_IDS = 200;
+  }
+
+  start(onNotificationCallback) {
+    if (this.isActive) {
+      console.log('Notification stream already running');
+      return;
+    }
+
+    console.log('Starting notification stream');
+    this.isActive = true;
+    this.onNotificationCallback = onNotificationCallback;
+    this.consecutiveErrors = 0;
+    this.connect();
+  }
+
+  stop() {
+    console.log('Stopping notification stream');
+    this.isActive = false;
+    this.onNotificationCallback = null;
+
+    if (this.reconnectTimeoutId) {
+      clearTimeout(this.reconnectTimeoutId);
+      this.reconnectTimeoutId = null;
+    }
+    if (this.abortController) {
+      this.abortController.abort();
+      this.abortController = null;
+    }
+  }
+
+  async connect() {
+    if (!this.isActive) return;
+
+    const token = localStorage.getItem('token');
+    if (!token) {
+      this.stop();
+      return;
+    }
+
+    const headers = {
+      'Authorization': `Bearer ${token}`,
+      'Accept': 'text/event-stream',
+    };
+    if (this.lastEventId) {
+      headers['Last-Event-ID'] = this.lastEventId;
+    }
+
+    this.abortController = new AbortController();
+
+    try {
+      const response = await fetch(`${API_BASE_URL}/shift-monitoring/notifications/stream`, {
+        method: 'GET',
+        headers,
+        signal: this.abortController.signal,
+      });
+
+      if (response.status === 401 || response.status === 403) {
+        console.error('Notification stream rejected - not reconnecting');
+        this.stop();
+        return;
+      }
+      if (!response.ok || !response.body) {
+        throw new Error(`Notification stream failed with status ${response.status}`);
+      }
+
+      this.consecutiveErrors = 0;
+      await this.readStream(response.body);
+    } catch (error) {
+      if (error.name === 'AbortError') return;
+      this.consecutiveErrors++;
+      console.error('Notification stream error:', error);
+    }
+
+    // Server closed the stream (timeout, redeploy) or the network dropped - reconnect
+    this.scheduleReconnect();
+  }
+
+  scheduleReconnect() {
+    if (!this.isActive) return;
+
+    // Back off while the server keeps failing
+    const delay = Math.min(
+      this.reconnectDelay * Math.pow(2, Math.max(0, this.consecutiveErrors - 1)),
+      this.MAX_RECONNECT_DELAY
+    );
+    this.reconnectTimeoutId = setTimeout(() => {
+      this.reconnectTimeoutId = null;
+      this.connect();
+    }, delay);
+  }
+
+  async readStream(body) {
+    const reader = body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+
+    while (this.isActive) {
+      const { done, value } = await reader.read();
+      if (done) return;
+
+      buffer += decoder.decode(value, { stream: true });
+
+      // Events are separated by a blank line
+      let boundary = buffer.search(/\r?\n\r?\n/);
+      while (boundary >= 0) {
+        const rawEvent = buffer.slice(0, boundary);
+        buffer = buffer.slice(boundary).replace(/^\r?\n\r?\n/, '');
+        this.handleEvent(rawEvent);
+        boundary = buffer.search(/\r?\n\r?\n/);
+      }
+    }
+  }
+
+  handleEvent(rawEvent) {
+    let id = null;
+    let eventName = 'message';
+    const data = [];
+
+    rawEvent.split(/\r?\n/).forEach(line => {
+      if (!line || line.startsWith(':')) return; // Comment / keepalive
+      const colon = line.indexOf(':');
+      const field = colon >= 0 ? line.slice(0, colon) : line;
+      const value = colon >= 0 ? line.slice(colon + 1).replace(/^ /, '') : '';
+
+      if (field === 'id') id = value;
+      else if (field === 'event') eventName = value;
+      else if (field === 'data') data.push(value);
+      else if (field === 'retry' && !isNaN(parseInt(value, 10))) this.reconnectDelay = parseInt(value, 10);
+    });
+
+    if (id) {
+      // Replays after a reconnect may repeat notifications that were also pushed live
+      if (this.seenIds.has(id)) return;
+      this.rememberId(id);
+      if (!this.lastEventId || Number(id) > Number(this.lastEventId)) {
+        this.lastEventId = id;
+      }
+    }
+
+    if (eventName !== 'notification' || data.length === 0) return;
+
+    try {
+      const notification = JSON.parse(data.join('\n'));
+      if (this.onNotificationCallback) {
+        this.onNotificationCallback(notification);
+      }
+    } catch (error) {
+      console.error('Malformed notification event:', error);
+    }
+  }
+
+  rememberId(id) {
+    this.seenIds.add(id);
+    if (this.seenIds.size > this.MAX_SEEN_IDS) {
+      this.seenIds.delete(this.seenIds.values().next().value);
+    }
+  }
+
+  async markAsRead(notificationId) {
+    // Real-time geofence warnings aren't stored, so there is nothing to mark
+    if (notificationId == null) return;
+
+    const token = localStorage.getItem('token');
+    if (!token) return;
+
+    try {
+      await fetch(`${API_BASE_URL}/shift-monitoring/notifications/${notificationId}/read`, {
+        method: 'PUT',
+        headers: {
+          'Authorization': `Bearer ${token}`,
+          'Content-Type': 'application/json',
+        },
+      });
+    } catch (error) {
+      console.error('Error marking notification as read:', error);
+    }
+  }
+
+  isRunning() {
+    return this.isActive;
+  }
+}
+
+// Singleton instance
+const notificationStreamService = new NotificationStreamService();
+export default notificationStreamService;